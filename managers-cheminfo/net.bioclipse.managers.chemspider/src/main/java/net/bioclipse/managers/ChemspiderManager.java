@@ -9,14 +9,7 @@
  */
 package net.bioclipse.managers;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.net.MalformedURLException;
-import java.net.URL;
-import java.nio.file.Files;
-import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
@@ -69,22 +62,15 @@ public class ChemspiderManager implements IBactingManager {
 
 		Set<Integer> results = new HashSet<Integer>();
 
-		URL url = new URL("https://www.chemspider.com/InChIKey/" + inchiKey);
-		BufferedReader reader = new BufferedReader(
-			new InputStreamReader(
-				url.openConnection().getInputStream()
-			)
-		);
-		String line = reader.readLine();
+		String page = bioclipse.download("https://www.chemspider.com/InChIKey/" + inchiKey);
 		Pattern pattern = Pattern.compile("Chemical-Structure.(\\d*).html");
 		String csid = "";
-		while (line != null) {
+		for (String line : page.split("\n")) {
 			Matcher matcher = pattern.matcher(line);
 			if (matcher.find()) {
 				csid = matcher.group(1);
 				results.add(Integer.valueOf(csid));
 			}
-			line = reader.readLine();
 		}
 
 		List<Integer> uniqueResults = new ArrayList<Integer>();
@@ -131,13 +117,7 @@ public class ChemspiderManager implements IBactingManager {
 	 */
 	public String loadCompound(int csid, String target)
 	throws IOException, BioclipseException, CoreException {
-		URL url = new URL("https://www.chemspider.com/mol/" + csid);
-		Files.copy(
-			url.openConnection().getInputStream(),
-			Paths.get(workspaceRoot + target),
-			StandardCopyOption.REPLACE_EXISTING
-		);
-		return target;
+		return bioclipse.downloadAsFile("https://www.chemspider.com/mol/" + csid, target);
 	}
 
 	@Override
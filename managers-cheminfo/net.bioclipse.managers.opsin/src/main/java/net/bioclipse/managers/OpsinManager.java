@@ -1,4 +1,4 @@
-/* Copyright (c) 2010,2020,2024-2025  Egon Willighagen <egon.willighagen@gmail.com>
+/* Copyright (c) 2010,2020,2024-2026  Egon Willighagen <egon.willighagen@gmail.com>
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -9,12 +9,23 @@
  */
 package net.bioclipse.managers;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
 import io.github.egonw.bacting.IBactingManager;
 import net.bioclipse.cdk.domain.ICDKMolecule;
 import net.bioclipse.core.business.BioclipseException;
@@ -32,15 +43,46 @@ import uk.ac.cam.ch.wwmm.opsin.ParsingException;
  */
 public class OpsinManager implements IBactingManager {
 
+	private static final int DEFAULT_CACHE_SIZE = 50000;
+
+	// shared by all OpsinManager instances, so that scripts creating
+	// several managers still only parse each name once
+	private static volatile Cache<String, ParsedName> parsedNames = createCache(DEFAULT_CACHE_SIZE);
+
+	private String workspaceRoot;
 	private CDKManager cdk;
 	private NameToStructure nameToStructure;
 
+	/**
+	 * Outcome of parsing a single name with OPSIN. Unparsable names are
+	 * cached too, with the OPSIN message explaining why parsing failed.
+	 * The CML is only kept for names it was asked for, and is otherwise
+	 * created again when asked for.
+	 */
+	private static class ParsedName {
+
+		private final String smiles;
+		private final String cml;
+		private final String message;
+
+		private ParsedName(String smiles, String cml, String message) {
+			this.smiles = smiles;
+			this.cml = cml;
+			this.message = message;
+		}
+
+		private boolean isSuccess() {
+			return this.message == null;
+		}
+	}
+
 	/**
      * Creates a new {@link OpsinManager}.
      *
      * @param workspaceRoot location of the workspace, e.g. "."
      */
 	public OpsinManager(String workspaceRoot) {
+		this.workspaceRoot = workspaceRoot;
 		this.cdk = new CDKManager(workspaceRoot);
 	}
 
@@ -65,16 +107,32 @@ public class OpsinManager implements IBactingManager {
 	 */
 	public String parseIUPACNameAsCML(String iupacName) 
 	              throws BioclipseException {
-        OpsinResult result = getNameToStructureInstance().parseChemicalName(iupacName);
-        if (result.getStatus() == OPSIN_RESULT_STATUS.SUCCESS) {
-        	return result.getCml();
+        ParsedName result = parse(iupacName);
+        if (result.isSuccess() && result.cml == null) result = parseWithOpsin(iupacName, true);
+        if (result.isSuccess()) {
+        	return result.cml;
         }
         throw new BioclipseException(
         	"Could not parse the IUPAC name (" + iupacName + "), because: " +
-        	result.getMessage()
+        	result.message
         );
 	}
 
+	private ParsedName parse(String iupacName) throws BioclipseException {
+		ParsedName cached = parsedNames.getIfPresent(iupacName);
+		if (cached != null) return cached;
+		return parseWithOpsin(iupacName, false);
+	}
+
+	private ParsedName parseWithOpsin(String iupacName, boolean keepCML) throws BioclipseException {
+		OpsinResult result = getNameToStructureInstance().parseChemicalName(iupacName);
+		ParsedName parsed = (result.getStatus() == OPSIN_RESULT_STATUS.SUCCESS)
+			? new ParsedName(result.getSmiles(), keepCML ? result.getCml() : null, null)
+			: new ParsedName(null, null, "" + result.getMessage());
+		parsedNames.put(iupacName, parsed);
+		return parsed;
+	}
+
 	private NameToStructure getNameToStructureInstance() throws BioclipseException {
 		if (this.nameToStructure == null) {
 			try {
@@ -98,16 +156,151 @@ public class OpsinManager implements IBactingManager {
 	 */
     public String parseIUPACNameAsSMILES(String iupacName) 
                   throws BioclipseException {
-        OpsinResult result = getNameToStructureInstance().parseChemicalName(iupacName);
-        if (result.getStatus() == OPSIN_RESULT_STATUS.SUCCESS) {
-        	return result.getSmiles();
+        ParsedName result = parse(iupacName);
+        if (result.isSuccess()) {
+        	return result.smiles;
         }
         throw new BioclipseException(
         	"Could not parse the IUPAC name (" + iupacName + "), because: " +
-        	result.getMessage()
+        	result.message
         );
     }
 
+    private static Cache<String, ParsedName> createCache(long maximumSize) {
+    	return CacheBuilder.newBuilder()
+    		.maximumSize(maximumSize)
+    		.recordStats()
+    		.build();
+    }
+
+	/**
+	 * Sets the maximal number of parsed names kept in the cache shared by all
+	 * {@link OpsinManager}s, so this affects every instance. Names already in
+	 * the cache are kept, as far as they fit in the new size.
+	 *
+	 * @param maximumSize the maximal number of cached names
+	 */
+    public static void setCacheSize(int maximumSize) {
+    	synchronized (OpsinManager.class) {
+    		Cache<String, ParsedName> newCache = createCache(maximumSize);
+    		newCache.putAll(parsedNames.asMap());
+    		parsedNames = newCache;
+    	}
+    }
+
+	/**
+	 * Removes all parsed names from the cache shared by all {@link OpsinManager}s.
+	 */
+    public void clearCache() {
+    	parsedNames.invalidateAll();
+    }
+
+	/**
+	 * Returns statistics about the use of the cache of parsed names, with the keys
+	 * "size", "hits", "misses", and "evictions".
+	 *
+	 * @return a {@link Map} with the cache statistics
+	 */
+    public Map<String,Long> getCacheStatistics() {
+    	CacheStats stats = parsedNames.stats();
+    	Map<String,Long> statistics = new HashMap<>();
+    	statistics.put("size", parsedNames.size());
+    	statistics.put("hits", stats.hitCount());
+    	statistics.put("misses", stats.missCount());
+    	statistics.put("evictions", stats.evictionCount());
+    	return statistics;
+    }
+
+	/**
+	 * Saves the cache of parsed names, including those that could not be parsed,
+	 * to a file in the Bioclipse workspace, so that it can be reused with
+	 * {@link #loadCache(String)}. The file is plain UTF-8 text with one name per
+	 * line: the name, a tab, and the SMILES, or for names that could not be parsed,
+	 * the name, two tabs, and the OPSIN message.
+	 *
+	 * @param file the location of the file in the Bioclipse workspace
+	 * @return     the location of the file in the Bioclipse workspace
+	 * @throws BioclipseException when the file could not be written
+	 */
+    public String saveCache(String file) throws BioclipseException {
+    	try (BufferedWriter writer = Files.newBufferedWriter(
+    			Paths.get(workspaceRoot + file), StandardCharsets.UTF_8)) {
+    		for (Map.Entry<String,ParsedName> entry : parsedNames.asMap().entrySet()) {
+    			ParsedName parsed = entry.getValue();
+    			writer.write(escape(entry.getKey()));
+    			writer.write('\t');
+    			if (parsed.isSuccess()) {
+    				writer.write(escape(parsed.smiles));
+    			} else {
+    				writer.write('\t');
+    				writer.write(escape(parsed.message));
+    			}
+    			writer.write('\n');
+    		}
+    	} catch (IOException exception) {
+    		throw new BioclipseException(
+    			"Error while saving the OPSIN cache: " + exception.getMessage(), exception
+    		);
+    	}
+    	return file;
+    }
+
+	/**
+	 * Adds the parsed names saved earlier with {@link #saveCache(String)} to the cache.
+	 *
+	 * @param file the location of the file in the Bioclipse workspace
+	 * @return     the number of names read from the file
+	 * @throws BioclipseException when the file could not be read or is not a saved cache
+	 */
+    public int loadCache(String file) throws BioclipseException {
+    	Map<String,ParsedName> content = new HashMap<>();
+    	try (BufferedReader reader = Files.newBufferedReader(
+    			Paths.get(workspaceRoot + file), StandardCharsets.UTF_8)) {
+    		String line;
+    		int lineNumber = 0;
+    		while ((line = reader.readLine()) != null) {
+    			lineNumber++;
+    			if (line.isEmpty()) continue;
+    			String[] fields = line.split("\t", -1);
+    			if (fields.length == 2 && !fields[1].isEmpty()) {
+    				content.put(unescape(fields[0]), new ParsedName(unescape(fields[1]), null, null));
+    			} else if (fields.length == 3 && fields[1].isEmpty()) {
+    				content.put(unescape(fields[0]), new ParsedName(null, null, unescape(fields[2])));
+    			} else {
+    				throw new BioclipseException(
+    					"Error while loading the OPSIN cache: unexpected content at line " + lineNumber
+    				);
+    			}
+    		}
+    	} catch (IOException exception) {
+    		throw new BioclipseException(
+    			"Error while loading the OPSIN cache: " + exception.getMessage(), exception
+    		);
+    	}
+    	parsedNames.putAll(content);
+    	return content.size();
+    }
+
+    // names and messages may contain tabs or line breaks, which separate the fields
+    private static String escape(String value) {
+    	return value.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n").replace("\r", "\\r");
+    }
+
+    private static String unescape(String value) {
+    	if (value.indexOf('\\') < 0) return value;
+    	StringBuilder result = new StringBuilder(value.length());
+    	for (int i=0; i<value.length(); i++) {
+    		char character = value.charAt(i);
+    		if (character == '\\' && i + 1 < value.length()) {
+    			char next = value.charAt(++i);
+    			result.append(next == 't' ? '\t' : next == 'n' ? '\n' : next == 'r' ? '\r' : next);
+    		} else {
+    			result.append(character);
+    		}
+    	}
+    	return result.toString();
+    }
+
 	/**
 	 * Parses a IUPAC name into tokens.
 	 *
@@ -16,10 +16,13 @@ import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
@@ -73,6 +76,72 @@ public class OpsinManagerTest {
 		assertTrue(exception.getMessage().contains("Could not parse"));
 	}
 
+	@Test
+	public void testParseIUPACNameAsSMILES_Cached() throws Exception {
+		String smiles = opsin.parseIUPACNameAsSMILES("ethanol");
+		long hits = opsin.getCacheStatistics().get("hits");
+		assertEquals(smiles, opsin.parseIUPACNameAsSMILES("ethanol"));
+		assertEquals(hits + 1, opsin.getCacheStatistics().get("hits"));
+	}
+
+	@Test
+	public void testParseIUPACNameAsCML_AfterSMILES() throws Exception {
+		// the CML is not cached for names only parsed into SMILES
+		opsin.parseIUPACNameAsSMILES("propanal");
+		String cmlMolecule = opsin.parseIUPACNameAsCML("propanal");
+		assertTrue(cmlMolecule.contains("cml"));
+		assertEquals(cmlMolecule, opsin.parseIUPACNameAsCML("propanal"));
+	}
+
+	@Test
+	public void testParseIUPACNameAsSMILES_BadCached() throws Exception {
+		assertThrows(BioclipseException.class, () -> opsin.parseIUPACNameAsSMILES("brexit"));
+		long hits = opsin.getCacheStatistics().get("hits");
+		Exception exception = assertThrows(
+			BioclipseException.class, () ->
+			{
+				opsin.parseIUPACNameAsSMILES("brexit");
+			}
+		);
+		assertTrue(exception.getMessage().contains("Could not parse"));
+		assertEquals(hits + 1, opsin.getCacheStatistics().get("hits"));
+	}
+
+	@Test
+	public void testSaveAndLoadCache() throws Exception {
+		opsin.parseIUPACNameAsSMILES("propane");
+		String file = opsin.saveCache("/opsin.cache");
+		assertEquals("/opsin.cache", file);
+		opsin.clearCache();
+		assertEquals(0, opsin.getCacheStatistics().get("size"));
+		int count = opsin.loadCache("/opsin.cache");
+		assertTrue(count > 0);
+		Map<String,Long> stats = opsin.getCacheStatistics();
+		assertEquals(count, stats.get("size"));
+	}
+
+	@Test
+	public void testLoadCache_PlainText() throws Exception {
+		opsin.parseIUPACNameAsSMILES("butane");
+		assertThrows(BioclipseException.class, () -> opsin.parseIUPACNameAsSMILES("brexit"));
+		opsin.saveCache("/opsin.txt");
+		String content = new String(Files.readAllBytes(Paths.get(workspaceRoot + "/opsin.txt")), StandardCharsets.UTF_8);
+		assertTrue(content.contains("butane\tCCCC\n"));
+		assertTrue(content.contains("brexit\t\t"));
+		opsin.clearCache();
+		opsin.loadCache("/opsin.txt");
+		assertEquals("CCCC", opsin.parseIUPACNameAsSMILES("butane"));
+		// the CML is not saved, but created again
+		assertTrue(opsin.parseIUPACNameAsCML("butane").contains("cml"));
+		assertThrows(BioclipseException.class, () -> opsin.parseIUPACNameAsSMILES("brexit"));
+	}
+
+	@Test
+	public void testLoadCache_NoCache() throws Exception {
+		Files.write(Paths.get(workspaceRoot + "/notacache.txt"), "not a cache".getBytes(StandardCharsets.UTF_8));
+		assertThrows(BioclipseException.class, () -> opsin.loadCache("/notacache.txt"));
+	}
+
 	@Test
 	public void testParseIUPACNameAsTokens_Bad() throws Exception {
 		Exception exception = assertThrows(
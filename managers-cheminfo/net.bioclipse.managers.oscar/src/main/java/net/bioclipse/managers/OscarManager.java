@@ -1,4 +1,4 @@
-/* Copyright (c) 2011,2021  Egon Willighagen <egon.willighagen@gmail.com>
+/* Copyright (c) 2011,2021,2026  Egon Willighagen <egon.willighagen@gmail.com>
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -10,17 +10,54 @@
 package net.bioclipse.managers;
 
 import java.io.ByteArrayInputStream;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.IntUnaryOperator;
 
+import org.openscience.cdk.interfaces.IAtomContainer;
 import org.openscience.cdk.io.formats.CMLFormat;
 import org.openscience.cdk.io.formats.IChemFormat;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
 import io.github.egonw.bacting.IBactingManager;
+import net.bioclipse.cdk.domain.CDKMolecule;
 import net.bioclipse.core.business.BioclipseException;
 import net.bioclipse.core.domain.IMolecule;
+import net.bioclipse.managers.domain.DocumentEntity;
+import net.htmlparser.jericho.CharacterReference;
+import net.htmlparser.jericho.EndTag;
+import net.htmlparser.jericho.HTMLElementName;
+import net.htmlparser.jericho.Segment;
 import net.htmlparser.jericho.Source;
+import net.htmlparser.jericho.StartTag;
+import net.htmlparser.jericho.StreamedSource;
+import net.htmlparser.jericho.Tag;
 import uk.ac.cam.ch.wwmm.oscar.Oscar;
 import uk.ac.cam.ch.wwmm.oscar.chemnamedict.entities.ChemicalStructure;
 import uk.ac.cam.ch.wwmm.oscar.chemnamedict.entities.FormatType;
@@ -32,15 +69,39 @@ import uk.ac.cam.ch.wwmm.oscar.document.NamedEntity;
  */
 public class OscarManager implements IBactingManager {
 
+	// Oscar gets slow on very long texts, so those are processed in chunks
+	private static final int MAX_CHUNK_LENGTH = 10000;
+
+	private static final Set<String> SKIPPED_ELEMENTS = new HashSet<String>(Arrays.asList(
+		HTMLElementName.SCRIPT, HTMLElementName.STYLE
+	));
+	private static final Set<String> BLOCK_ELEMENTS = new HashSet<String>(Arrays.asList(
+		"address", "article", "aside", "blockquote", "br", "caption", "dd", "div", "dl",
+		"dt", "figcaption", "footer", "h1", "h2", "h3", "h4", "h5", "h6", "header", "hr",
+		"li", "main", "nav", "ol", "p", "pre", "section", "table", "td", "th", "title",
+		"tr", "ul"
+	));
+
+	private String workspaceRoot;
 	private Oscar oscar = new Oscar();
 	private CDKManager cdk;
 
+	// the cached structures are never handed out, only copies of them
+	private Cache<String, IAtomContainer> resolvedMolecules = CacheBuilder.newBuilder()
+		.maximumSize(10000)
+		.recordStats()
+		.build();
+
+	// Oscar instances are not thread-safe, so each worker borrows its own
+	private Queue<Oscar> oscarPool = new ConcurrentLinkedQueue<Oscar>();
+
 	/**
      * Creates a new {@link OscarManager}.
      *
      * @param workspaceRoot location of the workspace, e.g. "."
      */
 	public OscarManager(String workspaceRoot) {
+		this.workspaceRoot = workspaceRoot;
 		this.cdk = new CDKManager(workspaceRoot);
 	}
 
@@ -61,6 +122,9 @@ public class OscarManager implements IBactingManager {
 
 	/**
 	 * Extracts molecules from a text for which the corresponding named entities are recognized as chemicals.
+	 * Molecules are cached by the surface form of the named entity, so that a compound mentioned many times
+	 * is parsed only once. Every returned {@link IMolecule} is a new copy, which can be changed without
+	 * affecting the others.
 	 *
 	 * @param text Text with chemical names.
 	 * @return List of {@link IMolecule}s. 
@@ -72,28 +136,263 @@ public class OscarManager implements IBactingManager {
     		ChemicalStructure structure = 
     			entity.getFirstChemicalStructure(FormatType.CML);
     		if (structure != null) {
-    			IMolecule mol;
-				try {
-					mol = cdk.loadMolecule(
-						new ByteArrayInputStream(
-							structure.getValue().getBytes()
-						), (IChemFormat)CMLFormat.getInstance()
-					);
-	    		    mols.add(mol);
-				} catch (BioclipseException e) {
-					throw new BioclipseException(
-						"Error while creating an IMolecule for an " +
-						"extracted compound: " + e.getMessage(), e);
-				} catch (IOException e) {
-					throw new BioclipseException(
-						"Error while creating an IMolecule for an " +
-						"extracted compound: " + e.getMessage(), e);
-				}
+    			try {
+    				IAtomContainer container = resolvedMolecules.get(
+    					entity.getNamedEntity().getSurface(), () -> loadMolecule(structure)
+    				);
+    				mols.add(new CDKMolecule(container.clone()));
+    			} catch (CloneNotSupportedException e) {
+    				throw new BioclipseException(
+    					"Error while copying the IMolecule for an " +
+    					"extracted compound: " + e.getMessage(), e);
+    			} catch (ExecutionException | UncheckedExecutionException e) {
+    				Throwable cause = e.getCause();
+    				throw new BioclipseException(
+    					"Error while creating an IMolecule for an " +
+    					"extracted compound: " + cause.getMessage(), cause);
+    			}
     		}
     	}
     	return mols;
     }
 
+    private IAtomContainer loadMolecule(ChemicalStructure structure)
+    		throws BioclipseException, IOException {
+    	return cdk.asCDKMolecule(cdk.loadMolecule(
+    		new ByteArrayInputStream(
+    			structure.getValue().getBytes()
+    		), (IChemFormat)CMLFormat.getInstance()
+    	)).getAtomContainer();
+    }
+
+	/**
+	 * Removes all molecules from the cache of resolved named entities.
+	 */
+    public void clearCache() {
+    	resolvedMolecules.invalidateAll();
+    }
+
+	/**
+	 * Returns statistics about the use of the cache of resolved named entities, with the keys
+	 * "size", "hits", "misses", and "evictions".
+	 *
+	 * @return a {@link Map} with the cache statistics
+	 */
+    public Map<String,Long> getCacheStatistics() {
+    	CacheStats stats = resolvedMolecules.stats();
+    	Map<String,Long> statistics = new HashMap<String,Long>();
+    	statistics.put("size", resolvedMolecules.size());
+    	statistics.put("hits", stats.hitCount());
+    	statistics.put("misses", stats.missCount());
+    	statistics.put("evictions", stats.evictionCount());
+    	return statistics;
+    }
+
+	/**
+	 * Extracts named entities from many documents in parallel. Long documents are
+	 * split into chunks at sentence boundaries, and every named entity is passed
+	 * to the sink as soon as its chunk is processed, with offsets relative to
+	 * the full document. The sink is never called concurrently.
+	 *
+	 * @param documents map of document identifiers to the document texts
+	 * @param threads   number of documents processed in parallel, or 0 to use all cores
+	 * @param sink      the {@link Consumer} receiving the found {@link DocumentEntity}s
+	 * @return          throughput statistics, with the keys "documents", "characters",
+	 *                  "entities", "milliseconds", and "documentsPerSecond"
+	 * @throws BioclipseException when processing a document failed
+	 */
+    public Map<String,Long> findNamedEntities(Map<String,String> documents, int threads,
+    		Consumer<DocumentEntity> sink) throws BioclipseException {
+    	return processDocuments(documents.entrySet().iterator(), false, threads, sink);
+    }
+
+	/**
+	 * Extracts named entities from many documents in parallel, reading the documents
+	 * only when a worker is about to process them, so that large collections of
+	 * documents do not have to be in memory at once. See
+	 * {@link #findNamedEntities(Map, int, Consumer)} for details.
+	 *
+	 * @param documents iterator over the document identifiers and the document texts
+	 * @param threads   number of documents processed in parallel, or 0 to use all cores
+	 * @param sink      the {@link Consumer} receiving the found {@link DocumentEntity}s
+	 * @return          throughput statistics, with the keys "documents", "characters",
+	 *                  "entities", "milliseconds", and "documentsPerSecond"
+	 * @throws BioclipseException when reading or processing a document failed
+	 */
+    public Map<String,Long> findNamedEntities(Iterator<Map.Entry<String,String>> documents,
+    		int threads, Consumer<DocumentEntity> sink) throws BioclipseException {
+    	return processDocuments(documents, false, threads, sink);
+    }
+
+	/**
+	 * Extracts named entities from many documents in parallel and resolves them
+	 * to chemical structures. Only entities that could be resolved are passed to
+	 * the sink. See {@link #findNamedEntities(Map, int, Consumer)} for details.
+	 *
+	 * @param documents map of document identifiers to the document texts
+	 * @param threads   number of documents processed in parallel, or 0 to use all cores
+	 * @param sink      the {@link Consumer} receiving the resolved {@link DocumentEntity}s
+	 * @return          throughput statistics, with the keys "documents", "characters",
+	 *                  "entities", "milliseconds", and "documentsPerSecond"
+	 * @throws BioclipseException when processing a document failed
+	 */
+    public Map<String,Long> findResolvedNamedEntities(Map<String,String> documents, int threads,
+    		Consumer<DocumentEntity> sink) throws BioclipseException {
+    	return processDocuments(documents.entrySet().iterator(), true, threads, sink);
+    }
+
+	/**
+	 * Extracts named entities from many documents in parallel and resolves them
+	 * to chemical structures, reading the documents only when a worker is about
+	 * to process them. See {@link #findResolvedNamedEntities(Map, int, Consumer)}
+	 * and {@link #findNamedEntities(Iterator, int, Consumer)} for details.
+	 *
+	 * @param documents iterator over the document identifiers and the document texts
+	 * @param threads   number of documents processed in parallel, or 0 to use all cores
+	 * @param sink      the {@link Consumer} receiving the resolved {@link DocumentEntity}s
+	 * @return          throughput statistics, with the keys "documents", "characters",
+	 *                  "entities", "milliseconds", and "documentsPerSecond"
+	 * @throws BioclipseException when reading or processing a document failed
+	 */
+    public Map<String,Long> findResolvedNamedEntities(Iterator<Map.Entry<String,String>> documents,
+    		int threads, Consumer<DocumentEntity> sink) throws BioclipseException {
+    	return processDocuments(documents, true, threads, sink);
+    }
+
+    private Map<String,Long> processDocuments(Iterator<Map.Entry<String,String>> documents, boolean resolve,
+    		int threads, Consumer<DocumentEntity> sink) throws BioclipseException {
+    	if (threads < 1) threads = Runtime.getRuntime().availableProcessors();
+    	ExecutorService executor = Executors.newFixedThreadPool(threads);
+    	// limits the number of documents read but waiting for a free worker
+    	Semaphore queued = new Semaphore(threads * 4);
+    	AtomicLong documentCount = new AtomicLong();
+    	AtomicLong characterCount = new AtomicLong();
+    	AtomicLong entityCount = new AtomicLong();
+    	AtomicReference<RuntimeException> failure = new AtomicReference<RuntimeException>();
+    	Consumer<DocumentEntity> serializedSink = entity -> {
+    		synchronized (sink) { sink.accept(entity); }
+    	};
+
+    	long startTime = System.currentTimeMillis();
+    	try {
+    		while (failure.get() == null && documents.hasNext()) {
+    			queued.acquire();
+    			Map.Entry<String,String> document = documents.next();
+    			executor.execute(() -> {
+    				Oscar worker = oscarPool.poll();
+    				if (worker == null) worker = new Oscar();
+    				try {
+    					String text = document.getValue();
+    					entityCount.addAndGet(
+    						processDocument(worker, document.getKey(), text, resolve, serializedSink)
+    					);
+    					characterCount.addAndGet(text.length());
+    					documentCount.incrementAndGet();
+    				} catch (RuntimeException exception) {
+    					failure.compareAndSet(null, exception);
+    				} finally {
+    					oscarPool.add(worker);
+    					queued.release();
+    				}
+    			});
+    		}
+    		executor.shutdown();
+    		executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+    	} catch (InterruptedException exception) {
+    		executor.shutdownNow();
+    		Thread.currentThread().interrupt();
+    		throw new BioclipseException(
+    			"Interrupted while finding named entities.", exception
+    		);
+    	} catch (RuntimeException exception) {
+    		executor.shutdownNow();
+    		throw new BioclipseException(
+    			"Error while reading the documents: " + exception.getMessage(), exception
+    		);
+    	}
+    	if (failure.get() != null) {
+    		throw new BioclipseException(
+    			"Error while finding named entities: " + failure.get().getMessage(),
+    			failure.get()
+    		);
+    	}
+
+    	long milliseconds = Math.max(1, System.currentTimeMillis() - startTime);
+    	Map<String,Long> statistics = new HashMap<String,Long>();
+    	statistics.put("documents", documentCount.get());
+    	statistics.put("characters", characterCount.get());
+    	statistics.put("entities", entityCount.get());
+    	statistics.put("milliseconds", milliseconds);
+    	statistics.put("documentsPerSecond", documentCount.get() * 1000 / milliseconds);
+    	return statistics;
+    }
+
+    private long processDocument(Oscar worker, String documentId, String text,
+    		boolean resolve, Consumer<DocumentEntity> sink) {
+    	long found = 0;
+    	int chunkStart = 0;
+    	while (chunkStart < text.length()) {
+    		int chunkEnd = findChunkEnd(text, chunkStart);
+    		int offset = chunkStart;
+    		found += processChunk(worker, documentId, text.substring(chunkStart, chunkEnd),
+    			position -> offset + position, position -> offset + position, resolve, sink);
+    		chunkStart = chunkEnd;
+    	}
+    	return found;
+    }
+
+    private long processChunk(Oscar worker, String documentId, String chunk,
+    		IntUnaryOperator startMapping, IntUnaryOperator endMapping,
+    		boolean resolve, Consumer<DocumentEntity> sink) {
+    	long found = 0;
+    	if (resolve) {
+    		for (ResolvedNamedEntity resolved : worker.findAndResolveNamedEntities(chunk)) {
+    			ChemicalStructure smiles = resolved.getFirstChemicalStructure(FormatType.SMILES);
+    			ChemicalStructure inchi = resolved.getFirstChemicalStructure(FormatType.INCHI);
+    			if (smiles == null && inchi == null) continue;
+    			sink.accept(createEntity(documentId, resolved.getNamedEntity(), startMapping, endMapping,
+    				smiles == null ? null : smiles.getValue(),
+    				inchi == null ? null : inchi.getValue()));
+    			found++;
+    		}
+    	} else {
+    		for (NamedEntity entity : worker.findNamedEntities(chunk)) {
+    			sink.accept(createEntity(documentId, entity, startMapping, endMapping, null, null));
+    			found++;
+    		}
+    	}
+    	return found;
+    }
+
+    private DocumentEntity createEntity(String documentId, NamedEntity entity,
+    		IntUnaryOperator startMapping, IntUnaryOperator endMapping,
+    		String smiles, String inchi) {
+    	return new DocumentEntity(
+    		documentId, entity.getSurface(), String.valueOf(entity.getType()),
+    		startMapping.applyAsInt(entity.getStart()), endMapping.applyAsInt(entity.getEnd()),
+    		smiles, inchi
+    	);
+    }
+
+    /**
+     * Finds the end of the chunk starting at the given position, preferably at the end
+     * of a sentence, otherwise at a whitespace, so that no named entity is cut in two.
+     */
+    static int findChunkEnd(CharSequence text, int chunkStart) {
+    	int maxEnd = chunkStart + MAX_CHUNK_LENGTH;
+    	if (maxEnd >= text.length()) return text.length();
+    	int minEnd = chunkStart + MAX_CHUNK_LENGTH / 2;
+    	for (int i = maxEnd - 1; i > minEnd; i--) {
+    		char c = text.charAt(i - 1);
+    		if ((c == '.' || c == '!' || c == '?') && Character.isWhitespace(text.charAt(i)))
+    			return i;
+    	}
+    	for (int i = maxEnd; i > minEnd; i--) {
+    		if (Character.isWhitespace(text.charAt(i))) return i;
+    	}
+    	return maxEnd;
+    }
+
     /**
      * Extracts plain text from a HTML document.
      *
@@ -105,6 +404,275 @@ public class OscarManager implements IBactingManager {
     	return source.getTextExtractor().toString();
     }
 
+    /**
+     * Extracts plain text from a HTML document while reading it, without loading
+     * the full document in memory. The text is passed to the sink in pieces, each
+     * with the character offset in the HTML source where the piece starts. Within
+     * a piece, every character maps to the next character in the source, unless
+     * the piece is a decoded character reference. Tags of block elements are
+     * replaced by a single space, and the content of scripts and styles is skipped.
+     *
+     * @param html the {@link InputStream} with the HTML document
+     * @param sink the {@link BiConsumer} receiving the text pieces and source offsets
+     * @return     the number of text characters passed to the sink
+     * @throws BioclipseException when the HTML could not be read
+     */
+    public long extractText(InputStream html, BiConsumer<String,Integer> sink)
+    		throws BioclipseException {
+    	long[] length = new long[1];
+    	streamText(html, (text, begin, end, plain) -> {
+    		sink.accept(text, begin);
+    		length[0] += text.length();
+    	});
+    	return length[0];
+    }
+
+    /**
+     * Extracts plain text from a HTML file in the Bioclipse workspace while reading it.
+     * See {@link #extractText(InputStream, BiConsumer)} for details.
+     *
+     * @param htmlFile the location of the HTML file in the Bioclipse workspace
+     * @param sink     the {@link BiConsumer} receiving the text pieces and source offsets
+     * @return         the number of text characters passed to the sink
+     * @throws BioclipseException when the HTML file could not be read
+     */
+    public long extractTextFromFile(String htmlFile, BiConsumer<String,Integer> sink)
+    		throws BioclipseException {
+    	try (InputStream html = new FileInputStream(workspaceRoot + htmlFile)) {
+    		return extractText(html, sink);
+    	} catch (IOException exception) {
+    		throw new BioclipseException(
+    			"Error while reading the HTML file: " + exception.getMessage(), exception
+    		);
+    	}
+    }
+
+    /**
+     * Finds named entities in a HTML document while it is being read. Text extraction
+     * continues while the previous chunk of text is processed by Oscar. The offsets of
+     * the entities passed to the sink are character offsets in the HTML source.
+     *
+     * @param html       the {@link InputStream} with the HTML document
+     * @param documentId the identifier used for the document in the {@link DocumentEntity}s
+     * @param resolve    if true, only entities resolved to chemical structures are returned
+     * @param sink       the {@link Consumer} receiving the found {@link DocumentEntity}s
+     * @return           the number of entities passed to the sink
+     * @throws BioclipseException when the HTML could not be read or processed
+     */
+    public long findNamedEntitiesInHTML(InputStream html, String documentId, boolean resolve,
+    		Consumer<DocumentEntity> sink) throws BioclipseException {
+    	Oscar pooledWorker = oscarPool.poll();
+    	Oscar worker = pooledWorker == null ? new Oscar() : pooledWorker;
+    	// returns the worker to the pool once the last chunk is recognized, also after a failure
+    	ExecutorService recognizer = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+    			new LinkedBlockingQueue<Runnable>()) {
+    		@Override
+    		protected void terminated() {
+    			oscarPool.add(worker);
+    		}
+    	};
+    	// allows one chunk to be recognized while the next one is extracted
+    	Semaphore pending = new Semaphore(1);
+    	AtomicLong found = new AtomicLong();
+    	AtomicReference<RuntimeException> failure = new AtomicReference<RuntimeException>();
+    	MappedText buffer = new MappedText();
+    	Consumer<MappedText> recognize = chunk -> {
+    		try {
+    			pending.acquire();
+    		} catch (InterruptedException exception) {
+    			Thread.currentThread().interrupt();
+    			throw new IllegalStateException("Interrupted while finding named entities.", exception);
+    		}
+    		recognizer.execute(() -> {
+    			try {
+    				found.addAndGet(processChunk(worker, documentId, chunk.toString(),
+    					chunk::sourceBegin, chunk::sourceEnd, resolve, sink));
+    			} catch (RuntimeException exception) {
+    				failure.compareAndSet(null, exception);
+    			} finally {
+    				pending.release();
+    			}
+    		});
+    	};
+    	try {
+    		streamText(html, (text, begin, end, plain) -> {
+    			if (failure.get() != null) throw failure.get();
+    			addText(buffer, text, begin, end, plain, recognize);
+    		});
+    		if (buffer.length() > 0) recognize.accept(buffer.cut(buffer.length()));
+    		recognizer.shutdown();
+    		recognizer.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+    	} catch (InterruptedException | RuntimeException exception) {
+    		recognizer.shutdownNow();
+    		throw new BioclipseException(
+    			"Error while finding named entities: " + exception.getMessage(), exception
+    		);
+    	} finally {
+    		recognizer.shutdown();
+    	}
+    	if (failure.get() != null) {
+    		throw new BioclipseException(
+    			"Error while finding named entities: " + failure.get().getMessage(),
+    			failure.get()
+    		);
+    	}
+    	return found.get();
+    }
+
+    /**
+     * Finds named entities in a HTML file in the Bioclipse workspace while it is being read.
+     * See {@link #findNamedEntitiesInHTML(InputStream, String, boolean, Consumer)} for details.
+     *
+     * @param htmlFile the location of the HTML file in the Bioclipse workspace
+     * @param resolve  if true, only entities resolved to chemical structures are returned
+     * @param sink     the {@link Consumer} receiving the found {@link DocumentEntity}s
+     * @return         the number of entities passed to the sink
+     * @throws BioclipseException when the HTML file could not be read or processed
+     */
+    public long findNamedEntitiesInHTML(String htmlFile, boolean resolve,
+    		Consumer<DocumentEntity> sink) throws BioclipseException {
+    	try (InputStream html = new FileInputStream(workspaceRoot + htmlFile)) {
+    		return findNamedEntitiesInHTML(html, htmlFile, resolve, sink);
+    	} catch (IOException exception) {
+    		throw new BioclipseException(
+    			"Error while reading the HTML file: " + exception.getMessage(), exception
+    		);
+    	}
+    }
+
+    /**
+     * Adds a piece of extracted text to the buffer, and passes every chunk that is
+     * complete to the consumer. Long plain text is added in parts, so that the buffer
+     * never holds much more than one chunk, and no chunk is longer than
+     * {@code MAX_CHUNK_LENGTH} characters.
+     */
+    static void addText(MappedText buffer, String text, int sourceBegin, int sourceEnd,
+    		boolean plain, Consumer<MappedText> chunks) {
+    	if (!plain) {
+    		buffer.append(text, sourceBegin, sourceEnd, false);
+    		cutChunks(buffer, chunks);
+    		return;
+    	}
+    	for (int part = 0; part < text.length(); part += MAX_CHUNK_LENGTH) {
+    		int partEnd = Math.min(text.length(), part + MAX_CHUNK_LENGTH);
+    		buffer.append(text.substring(part, partEnd), sourceBegin + part, sourceBegin + partEnd, true);
+    		cutChunks(buffer, chunks);
+    	}
+    }
+
+    private static void cutChunks(MappedText buffer, Consumer<MappedText> chunks) {
+    	while (buffer.length() > MAX_CHUNK_LENGTH) {
+    		chunks.accept(buffer.cut(findChunkEnd(buffer.text, 0)));
+    	}
+    }
+
+    private interface TextSink {
+    	void accept(String text, int sourceBegin, int sourceEnd, boolean plain);
+    }
+
+    private void streamText(InputStream html, TextSink sink) throws BioclipseException {
+    	try (StreamedSource source = new StreamedSource(html)) {
+    		String skippedElement = null;
+    		for (Segment segment : source) {
+    			if (segment instanceof Tag) {
+    				Tag tag = (Tag)segment;
+    				String name = tag.getName();
+    				if (skippedElement != null) {
+    					if (tag instanceof EndTag && name.equals(skippedElement)) skippedElement = null;
+    				} else if (tag instanceof StartTag && SKIPPED_ELEMENTS.contains(name)) {
+    					skippedElement = name;
+    				} else if (BLOCK_ELEMENTS.contains(name)) {
+    					sink.accept(" ", segment.getBegin(), segment.getEnd(), false);
+    				}
+    			} else if (skippedElement != null) {
+    				continue;
+    			} else if (segment instanceof CharacterReference) {
+    				int codePoint = ((CharacterReference)segment).getCodePoint();
+    				sink.accept(new String(Character.toChars(codePoint)),
+    					segment.getBegin(), segment.getEnd(), false);
+    			} else {
+    				// keep one character per source character, so that offsets map directly
+    				String text = segment.toString().replaceAll("\\s", " ");
+    				sink.accept(text, segment.getBegin(), segment.getEnd(), true);
+    			}
+    		}
+    	} catch (IOException exception) {
+    		throw new BioclipseException(
+    			"Error while reading the HTML: " + exception.getMessage(), exception
+    		);
+    	}
+    }
+
+    /**
+     * Text extracted from HTML that remembers for each piece of text where it came
+     * from in the HTML source.
+     */
+    static class MappedText {
+
+    	private final StringBuilder text = new StringBuilder();
+    	// for each piece: start in the text, begin and end in the source, and 1 if plain text
+    	private final List<int[]> pieces = new ArrayList<int[]>();
+
+    	private void append(String piece, int sourceBegin, int sourceEnd, boolean plain) {
+    		if (piece.isEmpty()) return;
+    		pieces.add(new int[] { text.length(), sourceBegin, sourceEnd, plain ? 1 : 0 });
+    		text.append(piece);
+    	}
+
+    	private int length() {
+    		return text.length();
+    	}
+
+    	private int pieceIndex(int position) {
+    		int low = 0;
+    		int high = pieces.size() - 1;
+    		while (low < high) {
+    			int middle = (low + high + 1) / 2;
+    			if (pieces.get(middle)[0] <= position) low = middle; else high = middle - 1;
+    		}
+    		return low;
+    	}
+
+    	private int sourceBegin(int position) {
+    		int[] piece = pieces.get(pieceIndex(position));
+    		return piece[3] == 1 ? piece[1] + position - piece[0] : piece[1];
+    	}
+
+    	private int sourceEnd(int position) {
+    		int[] piece = pieces.get(pieceIndex(position - 1));
+    		return piece[3] == 1 ? piece[1] + position - piece[0] : piece[2];
+    	}
+
+    	/**
+    	 * Removes the first characters of the text and returns them with their mapping.
+    	 */
+    	private MappedText cut(int end) {
+    		MappedText head = new MappedText();
+    		head.text.append(text, 0, end);
+    		List<int[]> tail = new ArrayList<int[]>();
+    		for (int[] piece : pieces) {
+    			int pieceEnd = piece[0] + (piece[3] == 1 ? piece[2] - piece[1] : 1);
+    			if (piece[0] < end) head.pieces.add(piece);
+    			if (piece[0] >= end) {
+    				tail.add(new int[] { piece[0] - end, piece[1], piece[2], piece[3] });
+    			} else if (piece[3] == 1 && pieceEnd > end) {
+    				// plain text piece split by the cut
+    				int shift = end - piece[0];
+    				tail.add(new int[] { 0, piece[1] + shift, piece[2], 1 });
+    			}
+    		}
+    		text.delete(0, end);
+    		pieces.clear();
+    		pieces.addAll(tail);
+    		return head;
+    	}
+
+    	@Override
+    	public String toString() {
+    		return text.toString();
+    	}
+    }
+
 	@Override
 	public String getManagerName() {
 		return "oscar";
@@ -0,0 +1,91 @@
+/* Copyright (c) 2026  Egon Willighagen <egon.willighagen@gmail.com>
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contact: http://www.bioclipse.net/
+ */
+package net.bioclipse.managers.domain;
+
+/**
+ * A named entity found in a document, with its position in the full document
+ * text and, if the entity was resolved, its chemical structure.
+ */
+public class DocumentEntity {
+
+	private final String documentId;
+	private final String surface;
+	private final String type;
+	private final int start;
+	private final int end;
+	private final String smiles;
+	private final String inchi;
+
+	public DocumentEntity(String documentId, String surface, String type,
+			int start, int end, String smiles, String inchi) {
+		this.documentId = documentId;
+		this.surface = surface;
+		this.type = type;
+		this.start = start;
+		this.end = end;
+		this.smiles = smiles;
+		this.inchi = inchi;
+	}
+
+	/**
+	 * @return the identifier of the document in which the entity was found
+	 */
+	public String getDocumentId() {
+		return documentId;
+	}
+
+	/**
+	 * @return the text of the entity as found in the document
+	 */
+	public String getSurface() {
+		return surface;
+	}
+
+	/**
+	 * @return the type of named entity, e.g. CM for a chemical compound
+	 */
+	public String getType() {
+		return type;
+	}
+
+	/**
+	 * @return the offset of the first character of the entity in the document
+	 */
+	public int getStart() {
+		return start;
+	}
+
+	/**
+	 * @return the offset just after the last character of the entity in the document
+	 */
+	public int getEnd() {
+		return end;
+	}
+
+	/**
+	 * @return the SMILES of the resolved structure, or null if not resolved
+	 */
+	public String getSmiles() {
+		return smiles;
+	}
+
+	/**
+	 * @return the InChI of the resolved structure, or null if not resolved
+	 */
+	public String getInChI() {
+		return inchi;
+	}
+
+	@Override
+	public String toString() {
+		return documentId + "[" + start + "-" + end + "]: " + surface;
+	}
+
+}
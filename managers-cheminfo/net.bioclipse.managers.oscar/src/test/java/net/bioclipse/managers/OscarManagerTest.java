@@ -11,16 +11,26 @@ package net.bioclipse.managers;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
 
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
 import net.bioclipse.cdk.domain.ICDKMolecule;
 import net.bioclipse.core.domain.IMolecule;
+import net.bioclipse.managers.domain.DocumentEntity;
 
 public class OscarManagerTest {
 
@@ -53,6 +63,68 @@ public class OscarManagerTest {
 		assertEquals("CH4", cdk.molecularFormula(methane));
 	}
 
+	@Test
+	public void testFindNamedEntities_Documents() throws Exception {
+		Map<String,String> documents = new HashMap<>();
+		documents.put("doc1", "We dissolved the methane.");
+		documents.put("doc2", "Benzene and toluene.");
+		List<DocumentEntity> entities = new ArrayList<>();
+		Map<String,Long> stats = oscar.findNamedEntities(documents, 2, entities::add);
+		assertEquals(2, stats.get("documents"));
+		assertEquals(3, stats.get("entities"));
+		assertEquals(3, entities.size());
+		for (DocumentEntity entity : entities) {
+			String text = documents.get(entity.getDocumentId());
+			assertEquals(entity.getSurface(), text.substring(entity.getStart(), entity.getEnd()));
+		}
+	}
+
+	@Test
+	public void testFindNamedEntities_Iterator() throws Exception {
+		// the documents are created only when they are read
+		Iterator<Map.Entry<String,String>> documents = IntStream.range(0, 20)
+			.mapToObj(i -> Map.entry("doc" + i, "We dissolved the methane."))
+			.iterator();
+		List<DocumentEntity> entities = new ArrayList<>();
+		Map<String,Long> stats = oscar.findNamedEntities(documents, 2, entities::add);
+		assertEquals(20, stats.get("documents"));
+		assertEquals(20, entities.size());
+	}
+
+	@Test
+	public void testFindResolvedNamedEntities_Documents() throws Exception {
+		Map<String,String> documents = new HashMap<>();
+		documents.put("doc1", "We dissolved the methane.");
+		List<DocumentEntity> entities = new ArrayList<>();
+		oscar.findResolvedNamedEntities(documents, 0, entities::add);
+		assertEquals(1, entities.size());
+		assertEquals("methane", entities.get(0).getSurface());
+		assertNotNull(entities.get(0).getInChI());
+	}
+
+	@Test
+	public void testFindChunkEnd() {
+		StringBuilder text = new StringBuilder();
+		while (text.length() < 25000) text.append("Methane is a gas. ");
+		int end = OscarManager.findChunkEnd(text.toString(), 0);
+		assertTrue(end <= 10000);
+		assertEquals('.', text.charAt(end - 1));
+		assertEquals(text.length(), OscarManager.findChunkEnd(text.toString(), 20000));
+	}
+
+	@Test
+	public void testFindResolvedNamedEntities_Cached() throws Exception {
+		oscar.clearCache();
+		List<IMolecule> molecules = oscar.findResolvedNamedEntities("methane and more methane");
+		assertEquals(2, molecules.size());
+		// each hit gets its own copy of the cached molecule
+		assertNotSame(molecules.get(0), molecules.get(1));
+		assertEquals(molecules.get(0).toSMILES(), molecules.get(1).toSMILES());
+		Map<String,Long> stats = oscar.getCacheStatistics();
+		assertEquals(1, stats.get("size"));
+		assertEquals(1, stats.get("hits"));
+	}
+
 	@Test
 	public void testExtractText() throws Exception {
 		String html = "<html><body>Benzene and toluene.</body></html>";
@@ -61,6 +133,62 @@ public class OscarManagerTest {
 		assertEquals("Benzene and toluene.", text);
 	}
 
+	@Test
+	public void testExtractText_Stream() throws Exception {
+		String html = "<html><head><script>var x = 1;</script></head><body><p>Benzene &amp; toluene.</p></body></html>";
+		StringBuilder text = new StringBuilder();
+		List<Integer> offsets = new ArrayList<>();
+		long length = oscar.extractText(
+			new ByteArrayInputStream(html.getBytes(StandardCharsets.UTF_8)),
+			(piece, offset) -> { text.append(piece); offsets.add(offset); }
+		);
+		assertEquals(text.length(), length);
+		assertEquals("Benzene & toluene.", text.toString().trim());
+		assertTrue(offsets.contains(html.indexOf("Benzene")));
+	}
+
+	@Test
+	public void testFindNamedEntitiesInHTML() throws Exception {
+		String html = "<html><body><p>We used <b>methane</b> &amp; benzene.</p></body></html>";
+		List<DocumentEntity> entities = new ArrayList<>();
+		long count = oscar.findNamedEntitiesInHTML(
+			new ByteArrayInputStream(html.getBytes(StandardCharsets.UTF_8)), "doc", false, entities::add
+		);
+		assertEquals(2, count);
+		for (DocumentEntity entity : entities) {
+			assertEquals(entity.getSurface(), html.substring(entity.getStart(), entity.getEnd()));
+		}
+	}
+
+	@Test
+	public void testAddText_LongSegment() {
+		StringBuilder text = new StringBuilder();
+		while (text.length() < 25000) text.append("Methane is a gas. ");
+		OscarManager.MappedText buffer = new OscarManager.MappedText();
+		List<String> chunks = new ArrayList<>();
+		OscarManager.addText(buffer, text.toString(), 0, text.length(), true,
+			chunk -> chunks.add(chunk.toString()));
+		chunks.add(buffer.toString());
+		assertTrue(chunks.size() >= 3);
+		for (String chunk : chunks) assertTrue(chunk.length() <= 10000);
+		assertEquals(text.toString(), String.join("", chunks));
+	}
+
+	@Test
+	public void testFindNamedEntitiesInHTML_LongText() throws Exception {
+		StringBuilder html = new StringBuilder("<html><body><p>");
+		for (int i=0; i<1500; i++) html.append("We used methane. ");
+		html.append("</p></body></html>");
+		List<DocumentEntity> entities = new ArrayList<>();
+		long count = oscar.findNamedEntitiesInHTML(
+			new ByteArrayInputStream(html.toString().getBytes(StandardCharsets.UTF_8)), "doc", false, entities::add
+		);
+		assertEquals(1500, count);
+		for (DocumentEntity entity : entities) {
+			assertEquals(entity.getSurface(), html.substring(entity.getStart(), entity.getEnd()));
+		}
+	}
+
 	@Test
 	public void testDOIs() {
 		List<String> dois = oscar.doi();
@@ -1,4 +1,4 @@
-/* Copyright (c) 2006-2020  Egon Willighagen <egonw@users.sf.net>
+/* Copyright (c) 2006-2026  Egon Willighagen <egonw@users.sf.net>
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -12,26 +12,74 @@ package net.bioclipse.managers;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
 import java.net.MalformedURLException;
-import java.net.URL;
-import java.net.URLConnection;
+import java.net.URLEncoder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.PatternSyntaxException;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 
 import org.apache.hc.client5.http.classic.methods.HttpGet;
-import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
-import org.apache.hc.client5.http.impl.classic.CloseableHttpResponse;
-import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.classic.methods.HttpPost;
+import org.apache.hc.client5.http.entity.UrlEncodedFormEntity;
+import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.Header;
 import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.HttpException;
+import org.apache.hc.core5.http.io.HttpClientResponseHandler;
+import org.apache.hc.core5.http.io.entity.EntityUtils;
+import org.apache.hc.core5.http.message.BasicNameValuePair;
 import org.eclipse.core.runtime.CoreException;
+import org.openscience.cdk.interfaces.IAtomContainer;
 import org.openscience.cdk.io.formats.IChemFormat;
+import org.openscience.cdk.io.iterator.IteratingSDFReader;
+import org.openscience.cdk.silent.SilentChemObjectBuilder;
 
 import io.github.egonw.bacting.IBactingManager;
 import net.bioclipse.cdk.domain.ICDKMolecule;
 import net.bioclipse.core.business.BioclipseException;
 import net.bioclipse.core.domain.IMolecule;
+import net.bioclipse.managers.http.HttpMetrics;
+import net.bioclipse.managers.http.ResponseCache;
+import net.bioclipse.managers.http.SharedHttpClient;
 import net.bioclipse.rdf.business.IRDFStore;
 import nu.xom.Builder;
 import nu.xom.Document;
@@ -48,13 +96,36 @@ public class PubChemManager implements IBactingManager {
     private final static String EUTILS_URL_BASE = "https://eutils.ncbi.nlm.nih.gov/entrez/eutils";
     private final static String PUBCHEM_URL_BASE = "https://pubchem.ncbi.nlm.nih.gov/";
     private final static String PUBCHEMRDF_URL_BASE = "https://rdf.ncbi.nlm.nih.gov/pubchem/compound/";
+    private final static String PUGREST_SDF_URL = PUBCHEM_URL_BASE + "rest/pug/compound/cid/SDF";
+
+    private final static int DEFAULT_SEARCH_CHUNK_SIZE = 500;
+    private final static int DEFAULT_CHUNK_SIZE = 100;
+    private final static int DEFAULT_CONCURRENT_CHUNKS = 3;
+
+    // PubChem allows at most five requests per second
+    private final static double DEFAULT_REQUESTS_PER_SECOND = 5.0;
+    private final static int MAX_CONCURRENT_REQUESTS = 5;
+    private final static int MAX_RETRIES = 5;
+    private final static long TRANSFER_BLOCK_SIZE = 1 << 20;
+    private final static long MAX_BACKOFF_MILLIS = 60000;
+
+    // shared by all PubChemManagers, so that all requests together respect the PubChem limits
+    private final static TokenBucket rateLimiter = new TokenBucket(DEFAULT_REQUESTS_PER_SECOND);
+    private final static ExecutorService workers = Executors.newFixedThreadPool(
+        MAX_CONCURRENT_REQUESTS,
+        runnable -> {
+            Thread thread = new Thread(runnable, "pubchem-worker");
+            thread.setDaemon(true);
+            return thread;
+        }
+    );
 
     private final static String TOOL = "bioclipse.net";
 
     private String workspaceRoot;
 	private CDKManager cdk;
 	private RDFManager rdf;
-	private UIManager ui;
+	private ResponseCache cache;
 
 	/**
      * Creates a new {@link PubChemManager}.
@@ -65,9 +136,116 @@ public class PubChemManager implements IBactingManager {
 		this.workspaceRoot = workspaceRoot;
 		this.cdk = new CDKManager(this.workspaceRoot);
 		this.rdf = new RDFManager(this.workspaceRoot);
-		this.ui = new UIManager(this.workspaceRoot);
 	}
 
+    /**
+     * Token bucket that limits the number of requests per second, while allowing
+     * short bursts up to the same number of requests.
+     */
+    private static class TokenBucket {
+
+        private double tokensPerNano;
+        private double capacity;
+        private double tokens;
+        private long lastRefill = System.nanoTime();
+
+        private TokenBucket(double requestsPerSecond) {
+            setRate(requestsPerSecond);
+            this.tokens = this.capacity;
+        }
+
+        private synchronized void setRate(double requestsPerSecond) {
+            if (!(requestsPerSecond > 0))
+                throw new IllegalArgumentException("The number of requests per second must be positive: " + requestsPerSecond);
+            this.tokensPerNano = requestsPerSecond / TimeUnit.SECONDS.toNanos(1);
+            this.capacity = Math.max(1.0, requestsPerSecond);
+        }
+
+        private void acquire() throws InterruptedIOException {
+            long waitNanos;
+            synchronized (this) {
+                long now = System.nanoTime();
+                tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerNano);
+                lastRefill = now;
+                tokens -= 1; // reserve a token, possibly one that still has to be refilled
+                waitNanos = tokens >= 0 ? 0 : (long)(-tokens / tokensPerNano);
+            }
+            sleep(TimeUnit.NANOSECONDS.toMillis(waitNanos));
+        }
+    }
+
+    private static void sleep(long millis) throws InterruptedIOException {
+        if (millis <= 0) return;
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for PubChem.");
+        }
+    }
+
+    /**
+     * Sets the maximal number of requests per second all {@link PubChemManager}s together
+     * send to PubChem. The default is five, the maximum allowed by PubChem.
+     *
+     * @param requestsPerSecond the maximal number of requests per second
+     * @throws IllegalArgumentException when the number is not positive
+     */
+    public void setRequestsPerSecond(double requestsPerSecond) {
+        rateLimiter.setRate(requestsPerSecond);
+    }
+
+    /**
+     * Executes the HTTP request when the rate limit allows it. When PubChem
+     * replies that it is busy or throttling (HTTP 503 or 429), the request is
+     * retried after the time PubChem asks for, or otherwise with an exponential
+     * backoff with jitter.
+     */
+    private <T> T execute(ClassicHttpRequest request, HttpClientResponseHandler<T> handler)
+            throws IOException {
+        for (int attempt = 0; ; attempt++) {
+            rateLimiter.acquire();
+            ClassicHttpResponse response = SharedHttpClient.get().executeOpen(null, request, null);
+            try {
+                int statusCode = response.getCode();
+                if ((statusCode == 503 || statusCode == 429) && attempt < MAX_RETRIES) {
+                    long delay = retryDelay(response.getFirstHeader("Retry-After"), attempt);
+                    EntityUtils.consume(response.getEntity());
+                    HttpMetrics.recordRetry(request.getAuthority() == null ? null : request.getAuthority().getHostName());
+                    sleep(delay);
+                    continue;
+                }
+                return handler.handleResponse(response);
+            } catch (HttpException exception) {
+                throw new IOException("Error while processing the PubChem reply: " + exception.getMessage(), exception);
+            } finally {
+                response.close();
+            }
+        }
+    }
+
+    private long retryDelay(Header retryAfter, int attempt) {
+        if (retryAfter != null) {
+            try {
+                return Math.min(MAX_BACKOFF_MILLIS, Long.parseLong(retryAfter.getValue().trim()) * 1000);
+            } catch (NumberFormatException exception) {
+                // not a number of seconds, use the backoff below
+            }
+        }
+        long backoff = Math.min(MAX_BACKOFF_MILLIS, 1000L << attempt);
+        return backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+    }
+
+    private <T> CompletableFuture<T> supplyAsync(Callable<T> call) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return call.call();
+            } catch (Exception exception) {
+                throw new CompletionException(exception);
+            }
+        }, workers);
+    }
+
     private String replaceSpaces(String molecule2) {
         StringBuffer result = new StringBuffer();
         for (int i=0; i<molecule2.length(); i++) {
@@ -101,13 +279,12 @@ public class PubChemManager implements IBactingManager {
         String esearch = EUTILS_URL_BASE + "/esearch.fcgi?" +
             "db=" + db + "&retmax=" + max + "&usehistory=y&tool=" + TOOL + "&term=" + query;
 
-        URL queryURL = new URL(esearch);
-        URLConnection connection = queryURL.openConnection();
+        String searchResults = downloadAsString(esearch, null, false);
 
         Builder parser = new Builder();
         Document doc;
         try {
-            doc = parser.build(connection.getInputStream());
+            doc = parser.build(new StringReader(searchResults));
             Nodes countNodes = doc.query("/eSearchResult/Count");
             if (countNodes.size() > 0) {
                 // System.out.println(countNodes.get(0).toString());
@@ -131,6 +308,167 @@ public class PubChemManager implements IBactingManager {
         return results;
     }
 
+    /**
+     * Searches PubChem for compounds using the given query, returning all hits.
+     * See {@link #searchAsStream(String, int, int)}.
+     *
+     * @param query the string to search in PubChem
+     * @return      a lazy {@link Stream} of PubChem compound identifiers
+     */
+    public Stream<Integer> searchAsStream(String query) {
+        return searchAsStream(query, DEFAULT_SEARCH_CHUNK_SIZE, 0);
+    }
+
+    /**
+     * Searches PubChem for compounds using the given query, returning all hits as
+     * a lazy {@link Stream}. The hits are downloaded in pages from the E-utilities
+     * history server when the stream is consumed, so that only the pages needed
+     * are requested. Errors while downloading a page are thrown as
+     * {@link UncheckedIOException}.
+     *
+     * @param query     the string to search in PubChem
+     * @param chunkSize the number of compound identifiers downloaded per request
+     * @param limit     the maximal number of compound identifiers to return, or 0 for all
+     * @return          a lazy {@link Stream} of PubChem compound identifiers
+     */
+    public Stream<Integer> searchAsStream(String query, int chunkSize, int limit) {
+        String term = replaceSpaces(query);
+        Iterator<Integer> cids = new Iterator<Integer>() {
+
+            private SearchPage page = null;
+            private int position = 0;
+            private int returned = 0;
+
+            @Override
+            public boolean hasNext() {
+                if (limit > 0 && returned >= limit) return false;
+                if (page != null && position < page.cids.size()) return true;
+                if (page != null && (page.cids.isEmpty() || page.next() >= page.count)) return false;
+
+                int retmax = limit > 0 ? Math.min(chunkSize, limit - returned) : chunkSize;
+                String esearch = EUTILS_URL_BASE + "/esearch.fcgi?db=pccompound&tool=" + TOOL +
+                    "&usehistory=y&retmax=" + retmax;
+                if (page == null) {
+                    esearch += "&retstart=0&term=" + term;
+                } else {
+                    // refer to the search on the history server, instead of running it again
+                    esearch += "&retstart=" + page.next() +
+                        "&WebEnv=" + URLEncoder.encode(page.webEnv, StandardCharsets.UTF_8) +
+                        "&query_key=" + page.queryKey + "&term=%23" + page.queryKey;
+                }
+                page = searchPage(esearch, page == null ? 0 : page.next(), page);
+                position = 0;
+                return !page.cids.isEmpty();
+            }
+
+            @Override
+            public Integer next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                returned++;
+                return page.cids.get(position++);
+            }
+        };
+        return StreamSupport.stream(
+            Spliterators.spliteratorUnknownSize(cids, Spliterator.ORDERED | Spliterator.NONNULL),
+            false
+        );
+    }
+
+    /**
+     * One page of E-utilities search results.
+     */
+    private static class SearchPage {
+
+        private int count = 0;
+        private int retstart;
+        private String webEnv;
+        private String queryKey;
+        private List<Integer> cids = new ArrayList<Integer>();
+
+        private SearchPage(int retstart, SearchPage previous) {
+            this.retstart = retstart;
+            if (previous != null) {
+                this.count = previous.count;
+                this.webEnv = previous.webEnv;
+                this.queryKey = previous.queryKey;
+            }
+        }
+
+        private int next() {
+            return retstart + cids.size();
+        }
+    }
+
+    private static void checkStatus(ClassicHttpResponse response) throws HttpStatusException {
+        int statusCode = response.getCode();
+        if (statusCode != 200) throw new HttpStatusException(statusCode,
+            "Expected HTTP 200, but got a " + statusCode + ": " + response.getReasonPhrase()
+        );
+    }
+
+    private static class HttpStatusException extends IOException {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int statusCode;
+
+        private HttpStatusException(int statusCode, String message) {
+            super(message);
+            this.statusCode = statusCode;
+        }
+    }
+
+    private SearchPage searchPage(String esearch, int retstart, SearchPage previous) {
+        try {
+            return execute(new HttpGet(esearch), response -> {
+                checkStatus(response);
+                return parseSearchPage(response.getEntity().getContent(), new SearchPage(retstart, previous));
+            });
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    private static SearchPage parseSearchPage(InputStream input, SearchPage page) throws IOException {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        try {
+            XMLStreamReader reader = factory.createXMLStreamReader(input);
+            int depth = 0;
+            boolean inIdList = false;
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.END_ELEMENT) {
+                    depth--;
+                    if ("IdList".equals(reader.getLocalName())) inIdList = false;
+                } else if (event == XMLStreamConstants.START_ELEMENT) {
+                    depth++;
+                    String name = reader.getLocalName();
+                    if (inIdList && "Id".equals(name)) {
+                        page.cids.add(Integer.valueOf(reader.getElementText().trim()));
+                        depth--; // getElementText() consumed the end tag
+                    } else if (depth == 2 && "IdList".equals(name)) {
+                        inIdList = true;
+                    } else if (depth == 2 && "Count".equals(name)) {
+                        page.count = Integer.parseInt(reader.getElementText().trim());
+                        depth--;
+                    } else if (depth == 2 && "WebEnv".equals(name)) {
+                        page.webEnv = reader.getElementText().trim();
+                        depth--;
+                    } else if (depth == 2 && "QueryKey".equals(name)) {
+                        page.queryKey = reader.getElementText().trim();
+                        depth--;
+                    }
+                }
+            }
+            reader.close();
+        } catch (XMLStreamException | NumberFormatException exception) {
+            throw new IOException("Error while parsing the PubChem search results: " + exception.getMessage(), exception);
+        }
+        return page;
+    }
+
 	@Override
 	public String getManagerName() {
 		return "pubchem";
@@ -141,6 +479,51 @@ public class PubChemManager implements IBactingManager {
 		return Collections.emptyList();
 	}
 
+    /**
+     * Downloads the compound with the given PubChem compound identifier in the
+     * background. Requests from all asynchronous calls share a bounded pool of
+     * workers and respect the PubChem rate limits.
+     *
+     * @param cid the PubChem compound identifier
+     * @return    a {@link CompletableFuture} giving the molecule
+     */
+    public CompletableFuture<IMolecule> downloadAsync(Integer cid) {
+        return supplyAsync(() -> download(cid));
+    }
+
+    /**
+     * Downloads the 3D structure of the compound with the given PubChem compound
+     * identifier in the background. See {@link #downloadAsync(Integer)}.
+     *
+     * @param cid the PubChem compound identifier
+     * @return    a {@link CompletableFuture} giving the molecule
+     */
+    public CompletableFuture<IMolecule> download3dAsync(Integer cid) {
+        return supplyAsync(() -> download3d(cid));
+    }
+
+    /**
+     * Downloads the RDF of the compound with the given PubChem compound identifier
+     * in the background, and adds it to the given store. See {@link #downloadAsync(Integer)}.
+     *
+     * @param cid   the PubChem compound identifier
+     * @param store the {@link IRDFStore} to add the triples to
+     * @return      a {@link CompletableFuture} giving the store
+     */
+    public CompletableFuture<IRDFStore> downloadRDFAsync(Integer cid, IRDFStore store) {
+        return supplyAsync(() -> downloadRDF(cid, store));
+    }
+
+    /**
+     * Searches PubChem for compounds in the background. See {@link #downloadAsync(Integer)}.
+     *
+     * @param query the string to search in PubChem
+     * @return      a {@link CompletableFuture} giving the PubChem compound identifiers
+     */
+    public CompletableFuture<List<Integer>> searchAsync(String query) {
+        return supplyAsync(() -> search(query));
+    }
+
     public IMolecule download(Integer cid)
         throws IOException, BioclipseException, CoreException {
     	String molstring = downloadAsString(cid);
@@ -168,40 +551,108 @@ public class PubChemManager implements IBactingManager {
 
     private String downloadAsString(String URL, String accepts)
             throws IOException, BioclipseException, CoreException {
-        String fileContent = "";
+        return downloadAsString(URL, accepts, true);
+    }
+
+    private String downloadAsString(String URL, String accepts, boolean cacheable)
+            throws IOException, BioclipseException, CoreException {
+        ResponseCache cache = cacheable ? this.cache : null;
+        String cacheKey = accepts + " " + URL;
+        if (cache != null) {
+            byte[] cached = cache.get(cacheKey);
+            if (cached != null) {
+                HttpMetrics.recordCacheHit(HttpMetrics.host(URL));
+                return new String(cached);
+            }
+        }
+
+        byte[] fileContent;
         try {
             HttpGet method = new HttpGet(URL);
 			if (accepts != null) {
 				method.addHeader("Accept", accepts);
 				method.addHeader("Content-Type", accepts);
 			}
-			CloseableHttpClient httpclient = HttpClients.createDefault();
-			CloseableHttpResponse response = httpclient.execute(method);
-			int statusCode = response.getCode();
-			if (statusCode != 200) throw new BioclipseException(
-				"Expected HTTP 200, but got a " + statusCode + ": " + response.getReasonPhrase()
-			);
-
-			HttpEntity responseEntity = response.getEntity();
-			ByteArrayOutputStream buffer = new ByteArrayOutputStream();
-			responseEntity.writeTo(buffer);
-			buffer.flush();
-			fileContent = new String(buffer.toByteArray());
+			fileContent = execute(method, response -> {
+				checkStatus(response);
+
+				HttpEntity responseEntity = response.getEntity();
+				ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+				responseEntity.writeTo(buffer);
+				buffer.flush();
+				return buffer.toByteArray();
+			});
         } catch (PatternSyntaxException exception) {
             exception.printStackTrace();
             throw new BioclipseException("Invalid Pattern.", exception);
         } catch (MalformedURLException exception) {
             exception.printStackTrace();
             throw new BioclipseException("Invalid URL.", exception);
+        } catch (IOException exception) {
+            if (exception instanceof HttpStatusException)
+                throw new BioclipseException(exception.getMessage(), exception);
+            throw exception;
+        }
+        if (cache != null) cache.put(cacheKey, fileContent);
+        return new String(fileContent);
+    }
+
+    /**
+     * Enables a cache of downloaded PubChem records in the Bioclipse workspace, used
+     * by the download and loadCompound methods. The cache is kept between runs, so
+     * that scripts rerunning the same downloads work offline.
+     *
+     * @param directory        the location of the cache directory in the Bioclipse workspace
+     * @param maxSizeInBytes   the maximal size of the compressed cache on disk
+     * @param timeToLiveInDays the number of days after which a cached record is downloaded again
+     * @throws BioclipseException when the cache directory could not be created or read
+     */
+    public void enableCache(String directory, long maxSizeInBytes, int timeToLiveInDays)
+            throws BioclipseException {
+        try {
+            this.cache = new ResponseCache(
+                workspaceRoot + directory, maxSizeInBytes, TimeUnit.DAYS.toMillis(timeToLiveInDays)
+            );
+        } catch (IOException exception) {
+            throw new BioclipseException(
+                "Error while opening the PubChem cache: " + exception.getMessage(), exception
+            );
         }
-        return fileContent;
+    }
+
+    /**
+     * Disables the cache of downloaded PubChem records. The cached records are kept
+     * on disk and can be used again with {@link #enableCache(String, long, int)}.
+     */
+    public void disableCache() {
+        this.cache = null;
+    }
+
+    /**
+     * Removes all records from the cache of downloaded PubChem records.
+     */
+    public void clearCache() {
+        if (this.cache != null) this.cache.clear();
+    }
+
+    /**
+     * Returns statistics about the use of the cache of downloaded PubChem records, with
+     * the keys "size", "bytes", "hits", "misses", and "evictions".
+     *
+     * @return a {@link Map} with the cache statistics, or an empty map if no cache is enabled
+     */
+    public Map<String,Long> getCacheStatistics() {
+        if (this.cache == null) return Collections.emptyMap();
+        return this.cache.getStatistics();
     }
 
     public IRDFStore downloadRDF(Integer cid, IRDFStore store)
         throws IOException, BioclipseException, CoreException {
         String downloadURI = PUBCHEMRDF_URL_BASE + "CID" + cid;
         String rdfContent = downloadAsString(downloadURI, "application/rdf+xml");
-        rdf.importFromString(store, rdfContent, "RDF/XML");
+        synchronized (store) { // downloadRDFAsync() may import into the same store in parallel
+            rdf.importFromString(store, rdfContent, "RDF/XML");
+        }
         return store;
     }
 
@@ -240,6 +691,129 @@ public class PubChemManager implements IBactingManager {
     	return results;
     }
 
+    /**
+     * Downloads many compounds from PubChem, requesting the SD files of many compounds
+     * at once with the PUG-REST API. Up to {@value #DEFAULT_CHUNK_SIZE} compounds are
+     * downloaded per request, and up to {@value #DEFAULT_CONCURRENT_CHUNKS} requests are
+     * run at the same time.
+     *
+     * @param cids the PubChem compound identifiers
+     * @return     a {@link List} of molecules, in the same order as the identifiers
+     * @throws BioclipseException when one or more compounds could not be downloaded
+     */
+    public List<IMolecule> downloadInBatches(List<Integer> cids)
+    		throws BioclipseException {
+    	return downloadInBatches(cids, DEFAULT_CHUNK_SIZE, DEFAULT_CONCURRENT_CHUNKS);
+    }
+
+    /**
+     * Downloads many compounds from PubChem, requesting the SD files of many compounds
+     * at once with the PUG-REST API.
+     *
+     * @param cids             the PubChem compound identifiers
+     * @param chunkSize        the number of compounds requested in one call
+     * @param concurrentChunks the maximal number of calls running at the same time
+     * @return                 a {@link List} of molecules, in the same order as the identifiers
+     * @throws BioclipseException when one or more compounds could not be downloaded
+     */
+    public List<IMolecule> downloadInBatches(List<Integer> cids, int chunkSize, int concurrentChunks)
+    		throws BioclipseException {
+    	return downloadInBatches(cids, "2d", chunkSize, concurrentChunks);
+    }
+
+    /**
+     * Downloads the 3D structures of many compounds from PubChem, requesting the
+     * SD files of many compounds at once with the PUG-REST API. Up to
+     * {@value #DEFAULT_CHUNK_SIZE} compounds are downloaded per request, and up to
+     * {@value #DEFAULT_CONCURRENT_CHUNKS} requests are run at the same time.
+     *
+     * @param cids the PubChem compound identifiers
+     * @return     a {@link List} of molecules, in the same order as the identifiers
+     * @throws BioclipseException when one or more compounds could not be downloaded
+     */
+    public List<IMolecule> download3dInBatches(List<Integer> cids)
+    		throws BioclipseException {
+    	return download3dInBatches(cids, DEFAULT_CHUNK_SIZE, DEFAULT_CONCURRENT_CHUNKS);
+    }
+
+    /**
+     * Downloads the 3D structures of many compounds from PubChem, requesting the
+     * SD files of many compounds at once with the PUG-REST API.
+     *
+     * @param cids             the PubChem compound identifiers
+     * @param chunkSize        the number of compounds requested in one call
+     * @param concurrentChunks the maximal number of calls running at the same time
+     * @return                 a {@link List} of molecules, in the same order as the identifiers
+     * @throws BioclipseException when one or more compounds could not be downloaded
+     */
+    public List<IMolecule> download3dInBatches(List<Integer> cids, int chunkSize, int concurrentChunks)
+    		throws BioclipseException {
+    	return downloadInBatches(cids, "3d", chunkSize, concurrentChunks);
+    }
+
+    private List<IMolecule> downloadInBatches(List<Integer> cids, String recordType,
+    		int chunkSize, int concurrentChunks) throws BioclipseException {
+    	if (chunkSize < 1) throw new BioclipseException("The chunk size must be at least 1.");
+    	ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, concurrentChunks));
+    	try {
+    		List<Future<Map<Integer,IMolecule>>> chunks = new ArrayList<>();
+    		for (int start=0; start<cids.size(); start+=chunkSize) {
+    			List<Integer> chunk = cids.subList(start, Math.min(cids.size(), start+chunkSize));
+    			chunks.add(executor.submit(() -> downloadChunk(chunk, recordType)));
+    		}
+    		Map<Integer,IMolecule> molecules = new HashMap<>();
+    		for (Future<Map<Integer,IMolecule>> chunk : chunks) {
+    			molecules.putAll(chunk.get());
+    		}
+    		List<IMolecule> results = new ArrayList<IMolecule>(cids.size());
+    		for (Integer cid : cids) {
+    			IMolecule molecule = molecules.get(cid);
+    			if (molecule == null) throw new BioclipseException( "Could not read molecule from " + cid );
+    			results.add(molecule);
+    		}
+    		return results;
+    	} catch (ExecutionException exception) {
+    		throw new BioclipseException(
+    			"Error while downloading from PubChem: " + exception.getCause().getMessage(),
+    			exception.getCause()
+    		);
+    	} catch (InterruptedException exception) {
+    		Thread.currentThread().interrupt();
+    		throw new BioclipseException("Interrupted while downloading from PubChem.", exception);
+    	} finally {
+    		executor.shutdownNow();
+    	}
+    }
+
+    private HttpPost createChunkRequest(List<Integer> cids, String recordType) {
+    	HttpPost method = new HttpPost(PUGREST_SDF_URL + "?record_type=" + recordType);
+    	String cidList = cids.stream().map(String::valueOf).collect(Collectors.joining(","));
+    	method.setEntity(new UrlEncodedFormEntity(
+    		Collections.singletonList(new BasicNameValuePair("cid", cidList)), StandardCharsets.UTF_8
+    	));
+    	return method;
+    }
+
+    private Map<Integer,IMolecule> downloadChunk(List<Integer> cids, String recordType)
+    		throws IOException {
+    	HttpPost method = createChunkRequest(cids, recordType);
+    	return execute(method, response -> {
+    		checkStatus(response);
+    		// parse the SD file while it is being downloaded
+    		Map<Integer,IMolecule> molecules = new HashMap<>();
+    		try (IteratingSDFReader reader = new IteratingSDFReader(
+    				response.getEntity().getContent(), SilentChemObjectBuilder.getInstance())) {
+    			while (reader.hasNext()) {
+    				IAtomContainer container = reader.next();
+    				Object cid = container.getProperty("PUBCHEM_COMPOUND_CID");
+    				if (cid == null) cid = container.getTitle();
+    				molecules.put(Integer.valueOf(cid.toString().trim()), cdk.newMolecule(container));
+    			}
+    		}
+    		return molecules;
+    	});
+    }
+
     public String loadCompound(int cid, String target)
     throws IOException, BioclipseException, CoreException {
         return loadCompoundAny(cid, target, "DisplayXML");
@@ -255,13 +829,9 @@ public class PubChemManager implements IBactingManager {
         if (target == null) {
             throw new BioclipseException("Cannot save to a NULL file.");
         }
-        String molString = downloadAsString(cid, type);
-        if (ui.fileExists(target)) {
-            ui.renewFile(target);
-            ui.append(target, molString);
-        } else {
-            ui.newFile(target, molString);
-        }
+        String efetch = PUBCHEM_URL_BASE + "summary/summary.cgi?cid=" +
+            cid + "&disopt=" + type;
+        downloadToFile(efetch, null, target);
         return target;
     }
 
@@ -272,15 +842,231 @@ public class PubChemManager implements IBactingManager {
         }
 
         String downloadURI = PUBCHEMRDF_URL_BASE + "CID" + cid;
-        String rdfString = downloadAsString(downloadURI, "application/rdf+xml");
+        downloadToFile(downloadURI, "application/rdf+xml", target);
+        return target;
+    }
+
+    /**
+     * Saves the PubChem XML records of many compounds in the given directory in the
+     * Bioclipse workspace, with one cid[number].xml file per compound. The compounds
+     * are downloaded concurrently, within the PubChem rate limits.
+     *
+     * @param cids      the PubChem compound identifiers
+     * @param directory the location of the directory in the Bioclipse workspace
+     * @return          a {@link List} with the locations of the saved files
+     * @throws BioclipseException when one or more compounds could not be saved
+     */
+    public List<String> loadCompounds(List<Integer> cids, String directory)
+        throws BioclipseException {
+        return loadCompoundsAny(cids, directory, "DisplayXML", ".xml");
+    }
 
-        if (ui.fileExists(target)) {
-            ui.renewFile(target);
-            ui.append(target, rdfString);
-        } else {
-            ui.newFile(target, rdfString);
+    /**
+     * Saves the 3D structures of many compounds in the given directory in the
+     * Bioclipse workspace, with one cid[number].sdf file per compound. The compounds
+     * are downloaded concurrently, within the PubChem rate limits.
+     *
+     * @param cids      the PubChem compound identifiers
+     * @param directory the location of the directory in the Bioclipse workspace
+     * @return          a {@link List} with the locations of the saved files
+     * @throws BioclipseException when one or more compounds could not be saved
+     */
+    public List<String> loadCompounds3d(List<Integer> cids, String directory)
+        throws BioclipseException {
+        return loadCompoundsAny(cids, directory, "3DDisplaySDF", ".sdf");
+    }
+
+    private List<String> loadCompoundsAny(List<Integer> cids, String directory,
+            String type, String extension) throws BioclipseException {
+        String folder = directory.endsWith("/") ? directory : directory + "/";
+        List<CompletableFuture<String>> files = new ArrayList<>();
+        for (Integer cid : cids) {
+            files.add(supplyAsync(() -> loadCompoundAny(cid, folder + "cid" + cid + extension, type)));
+        }
+        List<String> targets = new ArrayList<String>(cids.size());
+        try {
+            for (CompletableFuture<String> file : files) targets.add(file.get());
+        } catch (ExecutionException exception) {
+            Throwable cause = exception.getCause() instanceof CompletionException
+                ? exception.getCause().getCause() : exception.getCause();
+            throw new BioclipseException(
+                "Error while saving PubChem compounds: " + cause.getMessage(), cause
+            );
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new BioclipseException("Interrupted while saving PubChem compounds.", exception);
+        }
+        return targets;
+    }
+
+    /**
+     * Saves the structures of many compounds into one SD file in the Bioclipse workspace,
+     * in the order of the given identifiers. Up to 100 compounds are downloaded per
+     * request with the PUG-REST API, and up to 3 requests are run at the same time.
+     *
+     * @param cids   the PubChem compound identifiers
+     * @param target the location of the SD file in the Bioclipse workspace
+     * @return       the location of the SD file in the Bioclipse workspace
+     * @throws BioclipseException when one or more compounds could not be saved
+     */
+    public String loadCompoundsAsSDF(List<Integer> cids, String target)
+        throws BioclipseException {
+        return loadCompoundsAsSDF(cids, "2d", target);
+    }
+
+    /**
+     * Saves the 3D structures of many compounds into one SD file in the Bioclipse workspace,
+     * in the order of the given identifiers. Up to 100 compounds are downloaded per
+     * request with the PUG-REST API, and up to 3 requests are run at the same time.
+     *
+     * @param cids   the PubChem compound identifiers
+     * @param target the location of the SD file in the Bioclipse workspace
+     * @return       the location of the SD file in the Bioclipse workspace
+     * @throws BioclipseException when one or more compounds could not be saved
+     */
+    public String loadCompounds3dAsSDF(List<Integer> cids, String target)
+        throws BioclipseException {
+        return loadCompoundsAsSDF(cids, "3d", target);
+    }
+
+    private String loadCompoundsAsSDF(List<Integer> cids, String recordType, String target)
+        throws BioclipseException {
+        if (target == null) {
+            throw new BioclipseException("Cannot save to a NULL file.");
+        }
+        Path targetPath = Paths.get(workspaceRoot + target);
+        ExecutorService executor = Executors.newFixedThreadPool(DEFAULT_CONCURRENT_CHUNKS);
+        List<Future<Path>> chunks = new ArrayList<>();
+        try {
+            Files.createDirectories(targetPath.toAbsolutePath().getParent());
+            for (int start=0; start<cids.size(); start+=DEFAULT_CHUNK_SIZE) {
+                List<Integer> chunk = cids.subList(start, Math.min(cids.size(), start+DEFAULT_CHUNK_SIZE));
+                chunks.add(executor.submit(() -> {
+                    Path chunkFile = Files.createTempFile(targetPath.toAbsolutePath().getParent(), ".chunk", ".sdf");
+                    try {
+                        streamToFile(createChunkRequest(chunk, recordType), chunkFile);
+                        return chunkFile;
+                    } catch (IOException | RuntimeException exception) {
+                        // a failed chunk is not returned, so it cannot be cleaned up later
+                        Files.deleteIfExists(chunkFile);
+                        throw exception;
+                    }
+                }));
+            }
+            // concatenate the chunks in order, without loading them in memory
+            Path temporary = Files.createTempFile(targetPath.toAbsolutePath().getParent(), ".download", ".tmp");
+            try {
+                try (FileChannel output = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                    for (Future<Path> chunk : chunks) {
+                        try (FileChannel input = FileChannel.open(chunk.get(), StandardOpenOption.READ)) {
+                            long position = 0;
+                            while (position < input.size()) {
+                                position += input.transferTo(position, input.size() - position, output);
+                            }
+                        }
+                    }
+                }
+                moveIntoPlace(temporary, targetPath);
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+        } catch (ExecutionException exception) {
+            throw new BioclipseException(
+                "Error while saving PubChem compounds: " + exception.getCause().getMessage(),
+                exception.getCause()
+            );
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new BioclipseException("Interrupted while saving PubChem compounds.", exception);
+        } catch (IOException exception) {
+            throw new BioclipseException(
+                "Error while saving PubChem compounds: " + exception.getMessage(), exception
+            );
+        } finally {
+            executor.shutdownNow();
+            // running chunks may still create files, so wait until they stopped
+            awaitTermination(executor);
+            for (Future<Path> chunk : chunks) {
+                try {
+                    if (chunk.isDone() && !chunk.isCancelled()) Files.deleteIfExists(chunk.get());
+                } catch (Exception exception) {
+                    // nothing to clean up
+                }
+            }
         }
         return target;
     }
 
+    /**
+     * Downloads the content of the URL straight into a file in the Bioclipse workspace,
+     * via a temporary file that replaces the target only when the download succeeded.
+     * When the cache is enabled, cached content is used and new content is added.
+     */
+    private void downloadToFile(String URL, String accepts, String target)
+        throws IOException, BioclipseException {
+        Path targetPath = Paths.get(workspaceRoot + target);
+        Path folder = targetPath.toAbsolutePath().getParent();
+        Files.createDirectories(folder);
+        String cacheKey = accepts + " " + URL;
+        ResponseCache cache = this.cache;
+        Path temporary = Files.createTempFile(folder, ".download", ".tmp");
+        try {
+            if (cache != null && cache.get(cacheKey, temporary)) {
+                HttpMetrics.recordCacheHit(HttpMetrics.host(URL));
+            } else {
+                HttpGet method = new HttpGet(URL);
+                if (accepts != null) {
+                    method.addHeader("Accept", accepts);
+                    method.addHeader("Content-Type", accepts);
+                }
+                streamToFile(method, temporary);
+                if (cache != null) cache.put(cacheKey, temporary);
+            }
+            moveIntoPlace(temporary, targetPath);
+        } catch (IOException exception) {
+            if (exception instanceof HttpStatusException)
+                throw new BioclipseException(exception.getMessage(), exception);
+            throw exception;
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    private void streamToFile(ClassicHttpRequest request, Path file) throws IOException {
+        execute(request, response -> {
+            checkStatus(response);
+            try (ReadableByteChannel input = Channels.newChannel(response.getEntity().getContent());
+                 FileChannel output = FileChannel.open(file,
+                     StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                long position = 0;
+                long transferred;
+                while ((transferred = output.transferFrom(input, position, TRANSFER_BLOCK_SIZE)) > 0) {
+                    position += transferred;
+                }
+            }
+            return null;
+        });
+    }
+
+    private static void awaitTermination(ExecutorService executor) {
+        boolean interrupted = Thread.interrupted();
+        while (true) {
+            try {
+                executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+                break;
+            } catch (InterruptedException exception) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+    }
+
+    private static void moveIntoPlace(Path temporary, Path target) throws IOException {
+        try {
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException exception) {
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
 }
@@ -17,8 +17,14 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
@@ -65,6 +71,13 @@ public class PubChemManagerTest {
 		assertSame(0, dois.size());
 	}
 
+	@Test
+	public void testSetRequestsPerSecond_NotPositive() {
+		assertThrows(IllegalArgumentException.class, () -> pubchem.setRequestsPerSecond(0));
+		assertThrows(IllegalArgumentException.class, () -> pubchem.setRequestsPerSecond(-1));
+		assertThrows(IllegalArgumentException.class, () -> pubchem.setRequestsPerSecond(Double.NaN));
+	}
+
 	@Test
 	@Tag("pubchem")
 	public void testSearch() throws Exception {
@@ -76,6 +89,20 @@ public class PubChemManagerTest {
 		assertNotSame(0, results.size());
 	}
 
+	@Test
+	@Tag("pubchem")
+	public void testSearchAsStream() throws Exception {
+		List<Integer> results = pubchem.searchAsStream("benzene", 20, 50).collect(Collectors.toList());
+		assertEquals(50, results.size());
+		assertEquals(50, new HashSet<>(results).size()); // pages do not overlap
+	}
+
+	@Test
+	@Tag("pubchem")
+	public void testSearchAsStream_Brexitane() throws Exception {
+		assertEquals(0, pubchem.searchAsStream("brexitane").count());
+	}
+
 	@Test
 	@Tag("pubchem")
 	public void testSearch_Brexitane() throws Exception {
@@ -122,6 +149,70 @@ public class PubChemManagerTest {
 		assertEquals(2, mols.size());
 	}
 
+	@Test
+	@Tag("pubchem")
+	public void downloadInBatches() throws Exception {
+		List<Integer> cids = new ArrayList<>();
+		cids.add(71583);
+		cids.add(176);
+		cids.add(297);
+		List<IMolecule> mols = pubchem.downloadInBatches(cids, 2, 2);
+		assertNotNull(mols);
+		assertEquals(3, mols.size());
+		assertEquals("176", cdk.asCDKMolecule(mols.get(1)).getAtomContainer().getProperty("PUBCHEM_COMPOUND_CID"));
+	}
+
+	@Test
+	@Tag("pubchem")
+	public void download3dInBatches() throws Exception {
+		List<Integer> cids = new ArrayList<>();
+		cids.add(71583);
+		cids.add(176);
+		List<IMolecule> mols = pubchem.download3dInBatches(cids);
+		assertNotNull(mols);
+		assertEquals(2, mols.size());
+	}
+
+	@Test
+	@Tag("pubchem")
+	public void downloadAsync() throws Exception {
+		CompletableFuture<IMolecule> first = pubchem.downloadAsync(71583);
+		CompletableFuture<IMolecule> second = pubchem.download3dAsync(176);
+		assertNotNull(first.get());
+		assertNotNull(second.get());
+	}
+
+	@Test
+	@Tag("pubchem")
+	public void searchAsync() throws Exception {
+		List<Integer> results = pubchem.searchAsync("methane").get();
+		assertNotNull(results);
+		assertNotSame(0, results.size());
+	}
+
+	@Test
+	@Tag("pubchem")
+	public void downloadRDFAsync() throws Exception {
+		IRDFStore store = rdf.createInMemoryStore();
+		CompletableFuture<IRDFStore> first = pubchem.downloadRDFAsync(71583, store);
+		CompletableFuture<IRDFStore> second = pubchem.downloadRDFAsync(176, store);
+		CompletableFuture.allOf(first, second).get();
+		assertNotSame(0, rdf.size(store));
+	}
+
+	@Test
+	@Tag("pubchem")
+	public void downloadWithCache() throws Exception {
+		PubChemManager cachingPubchem = new PubChemManager(workspaceRoot);
+		cachingPubchem.enableCache("/pubchem-cache", 10000000, 1);
+		IMolecule mol = cachingPubchem.download(71583);
+		IMolecule cached = cachingPubchem.download(71583);
+		assertNotNull(mol);
+		assertNotNull(cached);
+		assertEquals(1, cachingPubchem.getCacheStatistics().get("hits"));
+		assertTrue(ui.fileExists("/pubchem-cache"));
+	}
+
 	@Test
 	@Tag("pubchem")
 	public void download3dAsString() throws Exception {
@@ -203,4 +294,52 @@ public class PubChemManagerTest {
 		assertTrue(ui.fileExists("/PubChemFiles/overwrite.rdf"));
     }
 
+	@Test
+	@Tag("pubchem")
+    public void loadCompounds() throws Exception {
+		List<Integer> cids = new ArrayList<>();
+		cids.add(71583);
+		cids.add(176);
+		List<String> files = pubchem.loadCompounds(cids, "/PubChemFiles/bulk");
+		assertEquals(2, files.size());
+		assertEquals("/PubChemFiles/bulk/cid176.xml", files.get(1));
+		assertTrue(ui.fileExists("/PubChemFiles/bulk/cid71583.xml"));
+		assertTrue(ui.fileExists("/PubChemFiles/bulk/cid176.xml"));
+	}
+
+	@Test
+	@Tag("pubchem")
+    public void loadCompoundsAsSDF() throws Exception {
+		List<Integer> cids = new ArrayList<>();
+		cids.add(71583);
+		cids.add(176);
+		pubchem.loadCompoundsAsSDF(cids, "/PubChemFiles/bulk.sdf");
+		assertTrue(ui.fileExists("/PubChemFiles/bulk.sdf"));
+		String content = Files.readString(Paths.get(workspaceRoot + "/PubChemFiles/bulk.sdf"));
+		assertEquals(2, content.split("\\$\\$\\$\\$").length - 1);
+	}
+
+	@Test
+	@Tag("pubchem")
+	public void loadCompoundsAsSDF_Failed() throws Exception {
+		List<Integer> cids = new ArrayList<>();
+		cids.add(-1); // not a PubChem compound
+		assertThrows(BioclipseException.class, () ->
+			pubchem.loadCompoundsAsSDF(cids, "/PubChemFiles/failed/bulk.sdf"));
+		// no temporary chunk files are left behind
+		try (Stream<Path> files = Files.list(Paths.get(workspaceRoot + "/PubChemFiles/failed/"))) {
+			assertEquals(0, files.count());
+		}
+	}
+
+	@Test
+	@Tag("pubchem")
+    public void loadCompoundsAsSDF_null() throws Exception {
+		Exception exception = assertThrows(BioclipseException.class, () ->
+		{
+		    pubchem.loadCompoundsAsSDF(new ArrayList<>(), null);
+		});
+		assertTrue(exception.getMessage().contains("Cannot save to a NULL file"));
+	}
+
 }
@@ -10,9 +10,12 @@
 package net.bioclipse.managers;
 
 import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
 import java.io.UnsupportedEncodingException;
 import java.net.MalformedURLException;
 import java.net.URL;
@@ -23,16 +26,36 @@ import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
+import org.apache.hc.client5.http.classic.methods.HttpGet;
 import org.apache.hc.client5.http.classic.methods.HttpPost;
 import org.apache.hc.client5.http.entity.UrlEncodedFormEntity;
-import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
-import org.apache.hc.client5.http.impl.classic.HttpClientBuilder;
+import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpEntity;
 import org.apache.hc.core5.http.NameValuePair;
 import org.apache.hc.core5.http.io.entity.EntityUtils;
 import org.apache.hc.core5.http.message.BasicNameValuePair;
@@ -40,6 +63,14 @@ import org.apache.hc.core5.http.message.BasicNameValuePair;
 import io.github.egonw.bacting.IBactingManager;
 import net.bioclipse.core.business.BioclipseException;
 import net.bioclipse.core.domain.StringMatrix;
+import net.bioclipse.managers.http.CircuitBreaker;
+import net.bioclipse.managers.http.Connectivity;
+import net.bioclipse.managers.http.HttpMetrics;
+import net.bioclipse.managers.http.RangedDownload;
+import net.bioclipse.managers.http.RetryPolicy;
+import net.bioclipse.managers.http.SPARQLResultCache;
+import net.bioclipse.managers.http.SPARQLResultsIterator;
+import net.bioclipse.managers.http.SharedHttpClient;
 
 /**
  * Bioclipse manager providing core functionality. It is similar to the
@@ -48,7 +79,16 @@ import net.bioclipse.core.domain.StringMatrix;
  */
 public class BioclipseManager implements IBactingManager {
 
+	// one virtual thread per asynchronous request, shared by all BioclipseManagers
+	private final static ExecutorService virtualThreads = Executors.newVirtualThreadPerTaskExecutor();
+
+	// results kept in memory in front of the SPARQL cache on disk
+	private final static long MEMORY_CACHE_BYTES = 32 * 1024 * 1024;
+
 	private String workspaceRoot;
+	private SPARQLResultCache sparqlCache;
+	private RetryPolicy sparqlRetryPolicy = new RetryPolicy(5, 1000, 60000);
+	private Map<String,String> sparqlFailovers = new ConcurrentHashMap<String,String>();
 
 	/**
      * Creates a new {@link BioclipseManager}.
@@ -71,25 +111,26 @@ public class BioclipseManager implements IBactingManager {
 
 	/**
 	 * Determines if online websites can be reached, reflecting access to
-	 * the internet.
+	 * the internet. The answer is cached and kept up to date by the requests
+	 * of all managers; websites are only probed when the connectivity is not
+	 * known yet or a host could not be reached.
 	 *
 	 * @return  true, if the machine has an active internet connection
 	 */
     public boolean isOnline() {
-    	// if both fail, we do not have internet
-    	String[] sites = new String[]{
-    		"http://google.com/",
-    		"http://slashdot.org/"
-    	};
-    	for (String site : sites) {
-    		try {
-    		    URL url = new URL(site);
-    		    URLConnection conn = url.openConnection();
-    		    conn.connect();
-    		    return true;
-    		} catch (Exception exception) {}
-    	}
-    	return false;
+    	return Connectivity.isOnline();
+    }
+
+    /**
+     * Configures how {@link #isOnline()} checks the internet access when it does not
+     * know yet.
+     *
+     * @param probeURLs the URLs to contact, of which one must answer, by default google.com and slashdot.org
+     * @param timeout   the time in milliseconds to wait for each URL, by default 3000
+     * @param maxAge    the time in milliseconds after which the answer is refreshed in the background, by default 60000
+     */
+    public void configureOnlineCheck(List<String> probeURLs, int timeout, long maxAge) {
+    	Connectivity.configure(probeURLs, timeout, maxAge);
     }
 
     /**
@@ -142,48 +183,44 @@ public class BioclipseManager implements IBactingManager {
      */
     public byte[] sparqlRemote(String serviceURL, String sparqlQueryString, Map<String,String> extraHeaders)
     throws BioclipseException {
-        // use Apache for doing the SPARQL query
- 
-        // Set credentials on the client
-        List<NameValuePair> formparams = new ArrayList<NameValuePair>();
-        formparams.add(new BasicNameValuePair("query", sparqlQueryString));
-        try {
-            UrlEncodedFormEntity entity = new UrlEncodedFormEntity(formparams, Charset.forName("UTF-8"));
-            HttpPost httppost = new HttpPost(serviceURL);
-            httppost.addHeader("Accept", "application/sparql-results+xml");
-            httppost.setEntity(entity);
-            if (extraHeaders != null) {
-                for (String header : extraHeaders.keySet()) {
-                    httppost.addHeader(header, extraHeaders.get(header));
-                }
-                if (!extraHeaders.containsKey("User-Agent"))
-                    httppost.addHeader("User-Agent", "Bacting (https://joss.theoj.org/papers/10.21105/joss.02558)");
-            } else {
-                httppost.addHeader("User-Agent", "Bacting (https://joss.theoj.org/papers/10.21105/joss.02558)");
+        return sparqlRemoteInFormat(serviceURL, sparqlQueryString, SPARQLResultsIterator.XML, extraHeaders);
+    }
+
+    /**
+     * Queries a remote SPARQL end point without Apache Jena and returns the results
+     * in the given format, if the end point supports it. The SPARQL JSON
+     * (application/sparql-results+json) and TSV (text/tab-separated-values) formats are
+     * smaller and faster to parse than the default XML format.
+     *
+     * @param serviceURL        the URL of the SPARQL end point
+     * @param sparqlQueryString the SPARQL query
+     * @param mimeType          the media type of the results format, or a full Accept header
+     * @param extraHeaders      additional, custom HTTP headers, or null
+     * @return                  the results in the returned format
+     * @throws BioclipseException when an {@link IOException} is encountered
+     */
+    public byte[] sparqlRemoteInFormat(String serviceURL, String sparqlQueryString, String mimeType,
+    		Map<String,String> extraHeaders)
+    throws BioclipseException {
+        SPARQLResultCache cache = this.sparqlCache;
+        // results in other formats are cached separately
+        Map<String,String> cacheHeaders = extraHeaders;
+        if (!SPARQLResultsIterator.XML.equals(mimeType)) {
+            cacheHeaders = new HashMap<String,String>();
+            if (extraHeaders != null) cacheHeaders.putAll(extraHeaders);
+            cacheHeaders.put("Accept", mimeType);
+        }
+        if (cache != null) {
+            byte[] cached = cache.get(serviceURL, sparqlQueryString, cacheHeaders);
+            if (cached != null) {
+                HttpMetrics.recordCacheHit(HttpMetrics.host(serviceURL));
+                return cached;
             }
-            CloseableHttpClient httpclient = HttpClientBuilder.create().build();
-            byte[] responeString = httpclient.execute(httppost,
-                response -> {
-                    int statusCode = response.getCode();
-                    if (statusCode == 200) {
-                        String bodyAsString = EntityUtils.toString(response.getEntity());
-                        return bodyAsString.getBytes();
-                    } else {
-                        InputStream errorStream = response.getEntity().getContent();
-                        String errorDetails = new String(errorStream.readAllBytes(), StandardCharsets.UTF_8);
-                        errorStream.close();
-                        throw new IOException(
-                            "Expected HTTP 200, but got a " + statusCode + ": " + response.getReasonPhrase() +
-                            "\n" + errorDetails
-                        );
-                    }
-                 }
-             );
-             return responeString;
-         } catch (UnsupportedEncodingException exception) {
-        	 throw new BioclipseException(
-                 "Error while creating the SPARQL query: " + exception.getMessage(), exception
-             );
+        }
+        try (ClassicHttpResponse response = openSPARQL(serviceURL, sparqlQueryString, mimeType, extraHeaders)) {
+            byte[] results = EntityUtils.toByteArray(response.getEntity());
+            if (cache != null) cache.put(serviceURL, sparqlQueryString, cacheHeaders, results);
+            return results;
          } catch (IOException exception) {
         	 throw new BioclipseException(
                  "Error while processing the SPARQL endpoint feedback: " + exception.getMessage(), exception
@@ -191,6 +228,311 @@ public class BioclipseManager implements IBactingManager {
          }
     }
 
+    /**
+     * Enables a cache of SPARQL results in the Bioclipse workspace, used by
+     * {@link #sparqlRemote(String, String, Map)} and the methods that use it. Results are
+     * cached per end point and query, ignoring differences in whitespace. The cache is
+     * kept between runs, and the most recently used results are also kept in memory.
+     *
+     * @param directory        the location of the cache directory in the Bioclipse workspace
+     * @param maxSizeInBytes   the maximal size of the compressed cache on disk
+     * @param timeToLiveInDays the number of days after which a query is run again
+     * @throws BioclipseException when the cache directory could not be created or read
+     */
+    public void enableSPARQLCache(String directory, long maxSizeInBytes, int timeToLiveInDays)
+    throws BioclipseException {
+        try {
+            this.sparqlCache = new SPARQLResultCache(
+                workspaceRoot + directory, maxSizeInBytes, MEMORY_CACHE_BYTES,
+                TimeUnit.DAYS.toMillis(timeToLiveInDays)
+            );
+        } catch (IOException exception) {
+            throw new BioclipseException(
+                "Error while opening the SPARQL cache: " + exception.getMessage(), exception
+            );
+        }
+    }
+
+    /**
+     * Disables the cache of SPARQL results. The cached results are kept on disk and
+     * can be used again with {@link #enableSPARQLCache(String, long, int)}.
+     */
+    public void disableSPARQLCache() {
+        this.sparqlCache = null;
+    }
+
+    /**
+     * Removes all results from the cache of SPARQL results.
+     */
+    public void clearSPARQLCache() {
+        if (this.sparqlCache != null) this.sparqlCache.clear();
+    }
+
+    /**
+     * Returns statistics about the use of the cache of SPARQL results, with the keys
+     * "size", "bytes", "hits", "misses", and "evictions" of the cache on disk, and
+     * "memorySize", "memoryBytes", and "memoryHits" of the results kept in memory.
+     *
+     * @return a {@link Map} with the cache statistics, or an empty map if no cache is enabled
+     */
+    public Map<String,Long> getSPARQLCacheStatistics() {
+        if (this.sparqlCache == null) return Collections.emptyMap();
+        return this.sparqlCache.getStatistics();
+    }
+
+    /**
+     * Queries a remote SPARQL end point without Apache Jena and passes each row of
+     * the results to the handler while the results are being downloaded. The rows
+     * map the bound variables to their URI, literal value, or blank node label. When
+     * the handler returns false, the download is stopped and the connection closed.
+     *
+     * @param serviceURL        the URL of the SPARQL end point
+     * @param sparqlQueryString the SPARQL query
+     * @param extraHeaders      additional, custom HTTP headers, or null
+     * @param rowHandler        the handler called for each row
+     * @return                  the number of rows passed to the handler
+     * @throws BioclipseException when the results could not be downloaded or parsed
+     */
+    public long sparqlRemote(String serviceURL, String sparqlQueryString, Map<String,String> extraHeaders,
+    		Predicate<Map<String,String>> rowHandler)
+    throws BioclipseException {
+        long rows = 0;
+        try (SPARQLResultsIterator results = sparqlRemoteAsIterator(serviceURL, sparqlQueryString, extraHeaders)) {
+            while (results.hasNext()) {
+                rows++;
+                if (!rowHandler.test(results.next())) break;
+            }
+        } catch (UncheckedIOException exception) {
+            throw new BioclipseException(
+                "Error while processing the SPARQL endpoint feedback: " + exception.getMessage(), exception
+            );
+        }
+        return rows;
+    }
+
+    /**
+     * Queries a remote SPARQL end point without Apache Jena and returns the rows of
+     * the results as a {@link Stream}, parsed while the results are being downloaded.
+     * The rows map the bound variables to their URI, literal value, or blank node label.
+     * The connection is closed when all rows are read or when the stream is closed,
+     * so use it in a try-with-resources block when not all rows are read.
+     *
+     * @param serviceURL        the URL of the SPARQL end point
+     * @param sparqlQueryString the SPARQL query
+     * @return                  a {@link Stream} of rows
+     * @throws BioclipseException when the SPARQL end point returned an error
+     */
+    public Stream<Map<String,String>> sparqlRemoteAsStream(String serviceURL, String sparqlQueryString)
+    throws BioclipseException {
+        return sparqlRemoteAsStream(serviceURL, sparqlQueryString, null);
+    }
+
+    /**
+     * Queries a remote SPARQL end point without Apache Jena and returns the rows of
+     * the results as a {@link Stream}, parsed while the results are being downloaded.
+     * The rows map the bound variables to their URI, literal value, or blank node label.
+     * The connection is closed when all rows are read or when the stream is closed,
+     * so use it in a try-with-resources block when not all rows are read.
+     *
+     * @param serviceURL        the URL of the SPARQL end point
+     * @param sparqlQueryString the SPARQL query
+     * @param extraHeaders      additional, custom HTTP headers
+     * @return                  a {@link Stream} of rows
+     * @throws BioclipseException when the SPARQL end point returned an error
+     */
+    public Stream<Map<String,String>> sparqlRemoteAsStream(String serviceURL, String sparqlQueryString,
+    		Map<String,String> extraHeaders)
+    throws BioclipseException {
+        SPARQLResultsIterator results = sparqlRemoteAsIterator(serviceURL, sparqlQueryString, extraHeaders);
+        return StreamSupport.stream(
+            Spliterators.spliteratorUnknownSize(results, Spliterator.ORDERED | Spliterator.NONNULL), false
+        ).onClose(results::close);
+    }
+
+    /**
+     * Queries a remote SPARQL end point without Apache Jena and returns an
+     * {@link Iterator} over the rows of the results, parsed while the results are being
+     * downloaded. The results are requested as TSV, JSON, CSV, or XML, in that order of
+     * preference, and parsed in whichever format the end point returns. The connection is
+     * closed when all rows are read or when the iterator is closed.
+     *
+     * @param serviceURL        the URL of the SPARQL end point
+     * @param sparqlQueryString the SPARQL query
+     * @param extraHeaders      additional, custom HTTP headers, or null
+     * @return                  a {@link SPARQLResultsIterator} over the rows
+     * @throws BioclipseException when the SPARQL end point returned an error
+     */
+    public SPARQLResultsIterator sparqlRemoteAsIterator(String serviceURL, String sparqlQueryString,
+    		Map<String,String> extraHeaders)
+    throws BioclipseException {
+        ClassicHttpResponse response = null;
+        try {
+            response = openSPARQL(serviceURL, sparqlQueryString, SPARQLResultsIterator.ACCEPT, extraHeaders);
+            HttpEntity entity = response.getEntity();
+            return new SPARQLResultsIterator(entity.getContent(), entity.getContentType(), response);
+        } catch (IOException exception) {
+            if (response != null) {
+                try {
+                    response.close();
+                } catch (IOException closeException) {
+                    // already failed
+                }
+            }
+            throw new BioclipseException(
+                "Error while processing the SPARQL endpoint feedback: " + exception.getMessage(), exception
+            );
+        }
+    }
+
+    private static HttpPost createSPARQLRequest(String serviceURL, String sparqlQueryString,
+    		String accept, Map<String,String> extraHeaders) {
+        List<NameValuePair> formparams = new ArrayList<NameValuePair>();
+        formparams.add(new BasicNameValuePair("query", sparqlQueryString));
+        HttpPost httppost = new HttpPost(serviceURL);
+        httppost.setHeader("Accept", accept);
+        httppost.setEntity(new UrlEncodedFormEntity(formparams, StandardCharsets.UTF_8));
+        if (extraHeaders != null) {
+            for (String header : extraHeaders.keySet()) {
+                httppost.setHeader(header, extraHeaders.get(header));
+            }
+        }
+        return httppost;
+    }
+
+    /**
+     * Sends the query to the end point and returns the open response when the end point
+     * replied with HTTP 200. Busy end points and time outs are retried with backoff, end
+     * points that keep failing are skipped by their circuit breaker, and when all this
+     * fails the query is sent to the alternate end point, if one is set.
+     */
+    private ClassicHttpResponse openSPARQL(String serviceURL, String sparqlQueryString,
+    		String accept, Map<String,String> extraHeaders) throws IOException {
+        try {
+            return openSPARQLWithRetries(serviceURL, sparqlQueryString, accept, extraHeaders);
+        } catch (IOException exception) {
+            String alternate = sparqlFailovers.get(serviceURL);
+            if (alternate == null) throw exception;
+            if (exception instanceof HttpStatusException &&
+                !RetryPolicy.isRetryable(((HttpStatusException)exception).statusCode)) throw exception;
+            return openSPARQLWithRetries(alternate, sparqlQueryString, accept, extraHeaders);
+        }
+    }
+
+    private ClassicHttpResponse openSPARQLWithRetries(String serviceURL, String sparqlQueryString,
+    		String accept, Map<String,String> extraHeaders) throws IOException {
+        CircuitBreaker breaker = CircuitBreaker.forEndpoint(serviceURL);
+        RetryPolicy policy = this.sparqlRetryPolicy;
+        HttpPost request = createSPARQLRequest(serviceURL, sparqlQueryString, accept, extraHeaders);
+        // the breaker counts calls, not attempts, so it is updated once, after the retries
+        boolean trial = breaker.checkAvailable();
+        boolean recorded = false;
+        try {
+            for (int attempt = 0; ; attempt++) {
+                ClassicHttpResponse response;
+                try {
+                    response = SharedHttpClient.get().executeOpen(null, request, null);
+                } catch (IOException exception) {
+                    if (RetryPolicy.isRetryable(exception) && attempt < policy.getMaxRetries()) {
+                        HttpMetrics.recordRetry(HttpMetrics.host(serviceURL));
+                        RetryPolicy.sleep(policy.delay(attempt, null));
+                        continue;
+                    }
+                    breaker.recordFailure();
+                    recorded = true;
+                    throw exception;
+                }
+                int statusCode = response.getCode();
+                if (RetryPolicy.isRetryable(statusCode) && attempt < policy.getMaxRetries()) {
+                    Header retryAfter = response.getFirstHeader("Retry-After");
+                    EntityUtils.consume(response.getEntity());
+                    response.close();
+                    HttpMetrics.recordRetry(HttpMetrics.host(serviceURL));
+                    RetryPolicy.sleep(policy.delay(attempt, retryAfter));
+                    continue;
+                }
+                // being throttled (429) does not mean the end point is down
+                if (statusCode != 429) {
+                    if (RetryPolicy.isRetryable(statusCode)) breaker.recordFailure();
+                    else breaker.recordSuccess();
+                    recorded = true;
+                }
+                try {
+                    checkSPARQLStatus(response);
+                } catch (IOException exception) {
+                    response.close();
+                    throw exception;
+                }
+                return response;
+            }
+        } finally {
+            if (trial && !recorded) breaker.releaseTrial();
+        }
+    }
+
+    private static void checkSPARQLStatus(ClassicHttpResponse response) throws IOException {
+        int statusCode = response.getCode();
+        if (statusCode != 200) {
+            String errorDetails = EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8);
+            throw new HttpStatusException(statusCode,
+                "Expected HTTP 200, but got a " + statusCode + ": " + response.getReasonPhrase() +
+                "\n" + errorDetails
+            );
+        }
+    }
+
+    private static class HttpStatusException extends IOException {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int statusCode;
+
+        private HttpStatusException(int statusCode, String message) {
+            super(message);
+            this.statusCode = statusCode;
+        }
+    }
+
+    /**
+     * Sets how often and after how long a remote SPARQL query is tried again, when the
+     * end point is busy (HTTP 429, 502, 503, or 504) or does not respond in time. A
+     * Retry-After time given by the end point is honored. By default, a query is retried
+     * five times, with an exponential backoff starting at one second, up to one minute.
+     *
+     * @param maxRetries     the maximal number of retries, zero to not retry
+     * @param initialBackoff the time in milliseconds to wait before the first retry
+     * @param maxBackoff     the maximal time in milliseconds to wait before a retry
+     */
+    public void setSPARQLRetries(int maxRetries, long initialBackoff, long maxBackoff) {
+        this.sparqlRetryPolicy = new RetryPolicy(maxRetries, initialBackoff, maxBackoff);
+    }
+
+    /**
+     * Sets an alternate SPARQL end point that is queried when the given end point
+     * keeps failing, e.g. a QLever mirror of Wikidata. Errors in the query itself
+     * are not sent to the alternate end point.
+     *
+     * @param serviceURL        the URL of the SPARQL end point
+     * @param alternateEndpoint the URL of the alternate SPARQL end point, or null to remove it
+     */
+    public void setSPARQLFailover(String serviceURL, String alternateEndpoint) {
+        if (alternateEndpoint == null) {
+            sparqlFailovers.remove(serviceURL);
+        } else {
+            sparqlFailovers.put(serviceURL, alternateEndpoint);
+        }
+    }
+
+    /**
+     * Returns true when queries to the given SPARQL end point currently fail
+     * immediately, because the end point failed too often in a row.
+     *
+     * @param serviceURL the URL of the SPARQL end point
+     * @return           true, if the end point is considered down
+     */
+    public boolean isSPARQLEndpointDown(String serviceURL) {
+        return CircuitBreaker.forEndpoint(serviceURL).isOpen();
+    }
+
     /**
      * Downloads the content of the page located by the given URL string as
      * a Java {@link String}.
@@ -215,35 +557,26 @@ public class BioclipseManager implements IBactingManager {
      * @throws BioclipseException when there was a downloading problem
      */
     public String download(String url, String mimeType, Map<String,String> extraHeaders) throws BioclipseException {
-    	StringBuffer content = new StringBuffer();
-    	URLConnection rawConn;
+    	URL location = createURL(url);
     	try {
-    		rawConn = createURL(url).openConnection();
-    		if (extraHeaders != null) {
-    			for (String header : extraHeaders.keySet()) {
-    				rawConn.addRequestProperty(header, extraHeaders.get(header));
-    			}
-    			if (!extraHeaders.containsKey("User-Agent"))
-    				rawConn.addRequestProperty("User-Agent", "Bacting (https://joss.theoj.org/papers/10.21105/joss.02558)");
-    		} else {
-        		rawConn.addRequestProperty("User-Agent", "Bacting (https://joss.theoj.org/papers/10.21105/joss.02558)");
-    		}
-    		if (mimeType != null)
-    			rawConn.addRequestProperty("Accept", mimeType);
-    		BufferedReader reader = new BufferedReader(
-    			new InputStreamReader(rawConn.getInputStream())
-    		);
-    		String line = reader.readLine();
-    		while (line != null) {
-    			content.append(line).append('\n');
-    			line = reader.readLine();
+    		if (!isHttp(location)) {
+    			URLConnection rawConn = location.openConnection();
+    			addRequestProperties(rawConn, mimeType, extraHeaders);
+    			return readLines(rawConn.getInputStream(), Charset.defaultCharset());
     		}
+    		return SharedHttpClient.get().execute(createGet(url, mimeType, extraHeaders), response -> {
+    			checkStatus(response, url);
+    			ContentType contentType = ContentType.parseLenient(response.getEntity().getContentType());
+    			return readLines(
+    				response.getEntity().getContent(),
+    				ContentType.getCharset(contentType, StandardCharsets.UTF_8)
+    			);
+    		});
     	} catch (IOException exception) {
     		throw new BioclipseException(
     			"Error while downloading from URL.", exception
     		);
     	}
-    	return content.toString();
     }
 
     /**
@@ -256,27 +589,157 @@ public class BioclipseManager implements IBactingManager {
      * @throws BioclipseException when there was a downloading problem
      */
     public String download(String url, String mimeType) throws BioclipseException {
-    	StringBuffer content = new StringBuffer();
-    	URLConnection rawConn;
+    	return download(url, mimeType, null);
+    }
+
+    /**
+     * Opens the document located by the given URL string as an {@link InputStream},
+     * so that it can be parsed while it is being downloaded. The connection is closed
+     * when the stream is closed.
+     *
+     * @param url {@link String} version of the URL of the document to download
+     * @return    an {@link InputStream} with the content of the document
+     * @throws BioclipseException when there was a downloading problem
+     */
+    public InputStream downloadAsStream(String url) throws BioclipseException {
+    	return downloadAsStream(url, null, null);
+    }
+
+    /**
+     * Opens the document located by the given URL string as an {@link InputStream}
+     * in the given mimetype (if provided by the webserver), so that it can be parsed
+     * while it is being downloaded. The connection is closed when the stream is closed.
+     *
+     * @param url          {@link String} version of the URL of the document to download
+     * @param mimeType     the mimetype in which the content should be returned, e.g. application/json
+     * @param extraHeaders additional HTTP headers, e.g. useful if authentication is needed
+     * @return             an {@link InputStream} with the content of the document
+     * @throws BioclipseException when there was a downloading problem
+     */
+    public InputStream downloadAsStream(String url, String mimeType, Map<String,String> extraHeaders)
+    		throws BioclipseException {
+    	return openDownload(url, mimeType, extraHeaders);
+    }
+
+    /**
+     * Opens the document located by the given URL string as a {@link BufferedReader}
+     * in the given mimetype (if provided by the webserver). The content is decoded with
+     * the character set given by the webserver, or UTF-8 otherwise. The connection is
+     * closed when the reader is closed.
+     *
+     * @param url          {@link String} version of the URL of the document to download
+     * @param mimeType     the mimetype in which the content should be returned, e.g. application/json
+     * @param extraHeaders additional HTTP headers, e.g. useful if authentication is needed
+     * @return             a {@link BufferedReader} with the content of the document
+     * @throws BioclipseException when there was a downloading problem
+     */
+    public BufferedReader downloadAsReader(String url, String mimeType, Map<String,String> extraHeaders)
+    		throws BioclipseException {
+    	DownloadStream stream = openDownload(url, mimeType, extraHeaders);
+    	Charset charset = stream.contentType == null
+    		? StandardCharsets.UTF_8
+    		: ContentType.getCharset(ContentType.parseLenient(stream.contentType), StandardCharsets.UTF_8);
+    	return new BufferedReader(new InputStreamReader(stream, charset));
+    }
+
+    /**
+     * Downloads the document located by the given URL string as a {@link Stream} of
+     * lines, read while the document is being downloaded. The connection is closed
+     * when all lines are read or when the stream is closed, so use it in a
+     * try-with-resources block when not all lines are read.
+     *
+     * @param url {@link String} version of the URL of the document to download
+     * @return    a {@link Stream} of lines
+     * @throws BioclipseException when there was a downloading problem
+     */
+    public Stream<String> downloadLines(String url) throws BioclipseException {
+    	return downloadLines(url, null, null);
+    }
+
+    /**
+     * Downloads the document located by the given URL string as a {@link Stream} of
+     * lines in the given mimetype (if provided by the webserver), read while the
+     * document is being downloaded. The content is decoded as with
+     * {@link #downloadAsReader(String, String, Map)}. The connection is closed when
+     * all lines are read or when the stream is closed, so use it in a
+     * try-with-resources block when not all lines are read.
+     *
+     * @param url          {@link String} version of the URL of the document to download
+     * @param mimeType     the mimetype in which the content should be returned, e.g. text/n3
+     * @param extraHeaders additional HTTP headers, e.g. useful if authentication is needed
+     * @return             a {@link Stream} of lines
+     * @throws BioclipseException when there was a downloading problem
+     */
+    public Stream<String> downloadLines(String url, String mimeType, Map<String,String> extraHeaders)
+    		throws BioclipseException {
+    	BufferedReader reader = downloadAsReader(url, mimeType, extraHeaders);
+    	Iterator<String> lines = reader.lines().iterator();
+    	Iterator<String> closingLines = new Iterator<String>() {
+    		@Override
+    		public boolean hasNext() {
+    			if (lines.hasNext()) return true;
+    			closeQuietly(reader);
+    			return false;
+    		}
+    		@Override
+    		public String next() {
+    			return lines.next();
+    		}
+    	};
+    	return StreamSupport.stream(
+    		Spliterators.spliteratorUnknownSize(closingLines, Spliterator.ORDERED | Spliterator.NONNULL), false
+    	).onClose(() -> closeQuietly(reader));
+    }
+
+    /**
+     * Stream over downloaded content that closes the connection when it is closed.
+     */
+    private static class DownloadStream extends FilterInputStream {
+
+    	private final String contentType;
+    	private final Closeable source;
+
+    	private DownloadStream(InputStream stream, String contentType, Closeable source) {
+    		super(stream);
+    		this.contentType = contentType;
+    		this.source = source;
+    	}
+
+    	@Override
+    	public void close() throws IOException {
+    		source.close();
+    	}
+    }
+
+    private DownloadStream openDownload(String url, String mimeType, Map<String,String> extraHeaders)
+    		throws BioclipseException {
+    	URL location = createURL(url);
+    	ClassicHttpResponse response = null;
     	try {
-    		rawConn = createURL(url).openConnection();
-    		rawConn.addRequestProperty("User-Agent", "Bacting (https://joss.theoj.org/papers/10.21105/joss.02558)");
-    		if (mimeType != null)
-    			rawConn.addRequestProperty("Accept", mimeType);
-    		BufferedReader reader = new BufferedReader(
-    			new InputStreamReader(rawConn.getInputStream())
-    		);
-    		String line = reader.readLine();
-    		while (line != null) {
-    			content.append(line).append('\n');
-    			line = reader.readLine();
+    		if (!isHttp(location)) {
+    			URLConnection rawConn = location.openConnection();
+    			addRequestProperties(rawConn, mimeType, extraHeaders);
+    			InputStream stream = rawConn.getInputStream();
+    			return new DownloadStream(stream, rawConn.getContentType(), stream);
     		}
+    		response = SharedHttpClient.get().executeOpen(null, createGet(url, mimeType, extraHeaders), null);
+    		checkStatus(response, url);
+    		HttpEntity entity = response.getEntity();
+    		return new DownloadStream(entity.getContent(), entity.getContentType(), response);
     	} catch (IOException exception) {
+    		if (response != null) closeQuietly(response);
     		throw new BioclipseException(
     			"Error while downloading from URL.", exception
     		);
     	}
-    	return content.toString();
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+    	try {
+    		closeable.close();
+    	} catch (IOException exception) {
+    		// nothing left to read
+    	}
     }
 
     /**
@@ -324,19 +787,21 @@ public class BioclipseManager implements IBactingManager {
     public String downloadAsFile(String url, String mimeType, String target,
     		Map<String,String> extraHeaders)
     				throws BioclipseException {
-    	URLConnection rawConn;
+    	URL location = createURL(url);
     	try {
-    		rawConn = createURL(url).openConnection();
-    		if (extraHeaders != null) {
-    			for (String header : extraHeaders.keySet()) {
-    				rawConn.addRequestProperty(header, extraHeaders.get(header));
-    			}
+    		if (!isHttp(location)) {
+    			URLConnection rawConn = location.openConnection();
+    			addRequestProperties(rawConn, mimeType, extraHeaders);
+    			Files.copy(rawConn.getInputStream(), Paths.get(workspaceRoot + target), StandardCopyOption.REPLACE_EXISTING);
+    			return target;
     		}
-    		if (mimeType != null)
-    			rawConn.addRequestProperty("Accept", mimeType);
-    	    Files.copy(rawConn.getInputStream(), Paths.get(workspaceRoot + target), StandardCopyOption.REPLACE_EXISTING);
+    		SharedHttpClient.get().execute(createGet(url, mimeType, extraHeaders), response -> {
+    			checkStatus(response, url);
+    			Files.copy(response.getEntity().getContent(), Paths.get(workspaceRoot + target), StandardCopyOption.REPLACE_EXISTING);
+    			return null;
+    		});
     	} catch (IOException exception) {
-    		if (exception.getMessage().contains("403"))
+    		if (exception.getMessage() != null && exception.getMessage().contains("403"))
     			throw new BioclipseException(
     				"No access.", exception
     			);
@@ -347,6 +812,353 @@ public class BioclipseManager implements IBactingManager {
     	return target;
     }
 
+    /**
+     * Downloads a large file, like a database dump, as a file in the Bioclipse
+     * workspace in four parallel segments. See
+     * {@link #downloadLargeFile(String, String, int, String, Map)}.
+     *
+     * @param url    {@link String} version of the URL of the file to download
+     * @param target path in the Bioclipse workspace where the content should be stored
+     * @return       the path of the file in the Bioclipse workspace
+     * @throws BioclipseException when there was a downloading problem
+     */
+    public String downloadLargeFile(String url, String target) throws BioclipseException {
+    	return downloadLargeFile(url, target, 4, null, null);
+    }
+
+    /**
+     * Downloads a large file, like a database dump, as a file in the Bioclipse
+     * workspace and verifies it against the given checksum. See
+     * {@link #downloadLargeFile(String, String, int, String, Map)}.
+     *
+     * @param url      {@link String} version of the URL of the file to download
+     * @param target   path in the Bioclipse workspace where the content should be stored
+     * @param segments the maximal number of parts downloaded in parallel
+     * @param checksum the expected checksum, e.g. "SHA-256:9f86d0...", or null
+     * @return         the path of the file in the Bioclipse workspace
+     * @throws BioclipseException when there was a downloading problem
+     */
+    public String downloadLargeFile(String url, String target, int segments, String checksum)
+    		throws BioclipseException {
+    	return downloadLargeFile(url, target, segments, checksum, null);
+    }
+
+    /**
+     * Downloads a large file, like a database dump, as a file in the Bioclipse
+     * workspace. When the server supports range requests, the file is downloaded
+     * in parallel segments, and dropped connections continue where they stopped.
+     * The progress is kept next to the target in a ".part.state" file, so that
+     * calling this method again after a failure continues the download, unless the
+     * file changed on the server. The size and, if given, the checksum are
+     * verified before the file is stored at the target.
+     *
+     * @param url          {@link String} version of the URL of the file to download
+     * @param target       path in the Bioclipse workspace where the content should be stored
+     * @param segments     the maximal number of parts downloaded in parallel
+     * @param checksum     the expected checksum as algorithm and hexadecimal digest,
+     *                     e.g. "SHA-256:9f86d0...", or null
+     * @param extraHeaders additional HTTP headers, e.g. useful if authentication is needed
+     * @return             the path of the file in the Bioclipse workspace
+     * @throws BioclipseException when there was a downloading problem
+     */
+    public String downloadLargeFile(String url, String target, int segments, String checksum,
+    		Map<String,String> extraHeaders) throws BioclipseException {
+    	URL location = createURL(url);
+    	if (!isHttp(location)) return downloadAsFile(url, null, target, extraHeaders);
+    	try {
+    		new RangedDownload(
+    			url, extraHeaders, Paths.get(workspaceRoot + target), segments, checksum, new RetryPolicy(5, 1000, 60000)
+    		).download();
+    	} catch (IllegalArgumentException exception) {
+    		throw new BioclipseException(exception.getMessage(), exception);
+    	} catch (IOException exception) {
+    		if (exception.getMessage() != null && exception.getMessage().contains("403"))
+    			throw new BioclipseException(
+    				"No access.", exception
+    			);
+    		throw new BioclipseException(
+    			"Error while downloading from URL: " + exception.getMessage(), exception
+    		);
+    	}
+    	return target;
+    }
+
+    /**
+     * Queries a remote SPARQL end point without Apache Jena in the background,
+     * on a virtual thread. See {@link #sparqlRemote(String, String)}.
+     *
+     * @param serviceURL        the URL of the SPARQL end point
+     * @param sparqlQueryString the SPARQL query
+     * @return                  a {@link CompletableFuture} giving the results
+     */
+    public CompletableFuture<byte[]> sparqlRemoteAsync(String serviceURL, String sparqlQueryString) {
+        return sparqlRemoteAsync(serviceURL, sparqlQueryString, null);
+    }
+
+    /**
+     * Queries a remote SPARQL end point without Apache Jena in the background,
+     * on a virtual thread. See {@link #sparqlRemote(String, String, Map)}.
+     *
+     * @param serviceURL        the URL of the SPARQL end point
+     * @param sparqlQueryString the SPARQL query
+     * @param extraHeaders      additional, custom HTTP headers
+     * @return                  a {@link CompletableFuture} giving the results
+     */
+    public CompletableFuture<byte[]> sparqlRemoteAsync(String serviceURL, String sparqlQueryString,
+    		Map<String,String> extraHeaders) {
+        return supplyAsync(() -> sparqlRemote(serviceURL, sparqlQueryString, extraHeaders));
+    }
+
+    /**
+     * Runs many queries against a remote SPARQL end point without Apache Jena,
+     * at most maxConcurrency at the same time, and returns the results in the order
+     * of the queries. Note that the shared HTTP client opens at most 10 connections
+     * to a single host, unless configured otherwise with
+     * {@link #configureHttpClient(int, int, int, int)}.
+     *
+     * @param serviceURL     the URL of the SPARQL end point
+     * @param queries        the SPARQL queries
+     * @param maxConcurrency the maximal number of queries running at the same time
+     * @return               a {@link List} with the results of each query
+     * @throws BioclipseException when one of the queries failed
+     */
+    public List<byte[]> sparqlRemoteAll(String serviceURL, List<String> queries, int maxConcurrency)
+    throws BioclipseException {
+        if (maxConcurrency < 1)
+            throw new BioclipseException("At least one query must be allowed to run.");
+        Semaphore permits = new Semaphore(maxConcurrency);
+        List<CompletableFuture<byte[]>> futures = new ArrayList<>(queries.size());
+        for (String query : queries) {
+            futures.add(supplyAsync(() -> {
+                permits.acquire();
+                try {
+                    return sparqlRemote(serviceURL, query, null);
+                } finally {
+                    permits.release();
+                }
+            }));
+        }
+        List<byte[]> results = new ArrayList<>(queries.size());
+        try {
+            for (CompletableFuture<byte[]> future : futures) results.add(future.get());
+        } catch (ExecutionException exception) {
+            futures.forEach(future -> future.cancel(true));
+            Throwable cause = exception.getCause() instanceof CompletionException
+                ? exception.getCause().getCause() : exception.getCause();
+            if (cause instanceof BioclipseException) throw (BioclipseException)cause;
+            throw new BioclipseException(
+                "Error while running the SPARQL queries: " + cause.getMessage(), cause
+            );
+        } catch (InterruptedException exception) {
+            futures.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new BioclipseException("Interrupted while running the SPARQL queries.", exception);
+        }
+        return results;
+    }
+
+    /**
+     * Downloads the content of the page located by the given URL string in the
+     * background, on a virtual thread. See {@link #download(String)}.
+     *
+     * @param url {@link String} version of the URL of the document to download
+     * @return    a {@link CompletableFuture} giving the content of the webpage
+     */
+    public CompletableFuture<String> downloadAsync(String url) {
+        return downloadAsync(url, null);
+    }
+
+    /**
+     * Downloads the content of the page located by the given URL string in the
+     * given mimetype in the background, on a virtual thread. See {@link #download(String, String)}.
+     *
+     * @param url      {@link String} version of the URL of the document to download
+     * @param mimeType the mimetype in which the content should be returned, e.g. text/n3
+     * @return         a {@link CompletableFuture} giving the content of the webpage
+     */
+    public CompletableFuture<String> downloadAsync(String url, String mimeType) {
+        return supplyAsync(() -> download(url, mimeType));
+    }
+
+    /**
+     * Downloads the content of the page located by the given URL string as a file in
+     * the Bioclipse workspace in the background, on a virtual thread.
+     * See {@link #downloadAsFile(String, String)}.
+     *
+     * @param url    {@link String} version of the URL of the document to download
+     * @param target path in the Bioclipse workspace where the content should be stored
+     * @return       a {@link CompletableFuture} giving the path of the file
+     */
+    public CompletableFuture<String> downloadAsFileAsync(String url, String target) {
+        return downloadAsFileAsync(url, null, target);
+    }
+
+    /**
+     * Downloads the content of the page located by the given URL string as a file in
+     * the given mimetype in the Bioclipse workspace in the background, on a virtual thread.
+     * See {@link #downloadAsFile(String, String, String)}.
+     *
+     * @param url      {@link String} version of the URL of the document to download
+     * @param mimeType the mimetype in which the content should be returned, e.g. text/n3
+     * @param target   path in the Bioclipse workspace where the content should be stored
+     * @return         a {@link CompletableFuture} giving the path of the file
+     */
+    public CompletableFuture<String> downloadAsFileAsync(String url, String mimeType, String target) {
+        return supplyAsync(() -> downloadAsFile(url, mimeType, target));
+    }
+
+    private static <T> CompletableFuture<T> supplyAsync(Callable<T> call) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return call.call();
+            } catch (Exception exception) {
+                throw new CompletionException(exception);
+            }
+        }, virtualThreads);
+    }
+
+    private static boolean isHttp(URL url) {
+    	return "http".equals(url.getProtocol()) || "https".equals(url.getProtocol());
+    }
+
+    private static HttpGet createGet(String url, String mimeType, Map<String,String> extraHeaders) {
+    	HttpGet request = new HttpGet(url);
+    	if (extraHeaders != null) {
+    		for (String header : extraHeaders.keySet()) {
+    			request.addHeader(header, extraHeaders.get(header));
+    		}
+    	}
+    	if (mimeType != null)
+    		request.addHeader("Accept", mimeType);
+    	return request;
+    }
+
+    private static void addRequestProperties(URLConnection rawConn, String mimeType, Map<String,String> extraHeaders) {
+    	if (extraHeaders != null) {
+    		for (String header : extraHeaders.keySet()) {
+    			rawConn.addRequestProperty(header, extraHeaders.get(header));
+    		}
+    	}
+    	if (extraHeaders == null || !extraHeaders.containsKey("User-Agent"))
+    		rawConn.addRequestProperty("User-Agent", SharedHttpClient.USER_AGENT);
+    	if (mimeType != null)
+    		rawConn.addRequestProperty("Accept", mimeType);
+    }
+
+    /**
+     * Throws an {@link IOException} with the same message as {@link URLConnection}
+     * when the server did not return the content.
+     */
+    private static void checkStatus(ClassicHttpResponse response, String url) throws IOException {
+    	int statusCode = response.getCode();
+    	if (statusCode != 200) {
+    		EntityUtils.consume(response.getEntity());
+    		throw new IOException(
+    			"Server returned HTTP response code: " + statusCode + " for URL: " + url
+    		);
+    	}
+    }
+
+    private static String readLines(InputStream stream, Charset charset) throws IOException {
+    	StringBuilder content = new StringBuilder();
+    	try (BufferedReader reader = new BufferedReader(new InputStreamReader(stream, charset))) {
+    		String line = reader.readLine();
+    		while (line != null) {
+    			content.append(line).append('\n');
+    			line = reader.readLine();
+    		}
+    	}
+    	return content.toString();
+    }
+
+    /**
+     * Configures the HTTP client shared by all managers. Connections are pooled and
+     * kept alive between requests.
+     *
+     * @param maxConnections        the maximal number of open connections, by default 50
+     * @param maxConnectionsPerHost the maximal number of open connections to a single host, by default 10
+     * @param connectTimeout        the time in milliseconds to wait for a connection, by default 5000
+     * @param responseTimeout       the time in milliseconds to wait for data from the server, by default 300000
+     */
+    public void configureHttpClient(int maxConnections, int maxConnectionsPerHost,
+    		int connectTimeout, int responseTimeout) {
+    	SharedHttpClient.configure(maxConnections, maxConnectionsPerHost, connectTimeout, responseTimeout);
+    }
+
+    /**
+     * Closes all open HTTP connections of the HTTP client shared by all managers.
+     * Scripts can call this when they are done with online resources. New connections
+     * are made when needed.
+     */
+    public void closeHttpClient() {
+    	SharedHttpClient.close();
+    }
+
+    /**
+     * Returns statistics of the HTTP connection pool shared by all managers:
+     * the connections in use ("leased"), idle connections ("available"), requests
+     * waiting for a connection ("pending"), and the maximal number of connections ("max").
+     *
+     * @return a {@link Map} with the pool statistics
+     */
+    public Map<String,Long> getHttpClientStatistics() {
+    	return SharedHttpClient.getStatistics();
+    }
+
+    /**
+     * Returns statistics of the HTTP requests of all managers, per host: the number
+     * of "requests" with a response, "errors" without a response, "bytes" read,
+     * "retries", "cacheHits", the "totalMillis" and "maxMillis" until the response
+     * headers arrived, the number of responses per status code, like "status.200",
+     * and a latency histogram, like "latency.le100" for the number of responses
+     * within 100 milliseconds.
+     *
+     * @return a {@link Map} from host to its statistics
+     */
+    public Map<String,Map<String,Long>> getHttpMetrics() {
+    	return HttpMetrics.getStatistics();
+    }
+
+    /**
+     * Forgets the statistics of the HTTP requests of all managers.
+     */
+    public void resetHttpMetrics() {
+    	HttpMetrics.reset();
+    }
+
+    /**
+     * Makes the statistics of the HTTP requests available over JMX, e.g. for
+     * JConsole, as <code>net.bioclipse.managers:type=HttpMetrics</code>.
+     *
+     * @throws BioclipseException when the statistics could not be registered
+     */
+    public void enableHttpMetricsMBean() throws BioclipseException {
+    	try {
+    		HttpMetrics.registerMBean();
+    	} catch (IOException exception) {
+    		throw new BioclipseException(exception.getMessage(), exception);
+    	}
+    }
+
+    /**
+     * Writes the statistics of the HTTP requests as JSON to a file in the Bioclipse
+     * workspace at a regular interval, until {@link #disableHttpMetricsDump()} is called.
+     *
+     * @param target   path in the Bioclipse workspace of the JSON file
+     * @param interval the time in milliseconds between two writes
+     */
+    public void enableHttpMetricsDump(String target, long interval) {
+    	HttpMetrics.startDump(Paths.get(workspaceRoot + target), interval);
+    }
+
+    /**
+     * Stops writing the statistics of the HTTP requests to a file, after writing
+     * them one last time.
+     */
+    public void disableHttpMetricsDump() {
+    	HttpMetrics.stopDump();
+    }
+
     /**
      * Creates an {@link URL} object for the given url.
      *
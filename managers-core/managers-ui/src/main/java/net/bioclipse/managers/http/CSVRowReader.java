@@ -0,0 +1,101 @@
+/* Copyright (c) 2026  Egon Willighagen <egon.willighagen@gmail.com>
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contact: http://www.bioclipse.net/
+ */
+package net.bioclipse.managers.http;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads rows from the SPARQL Query Results CSV format, which has the values of
+ * the RDF terms only. Quoted fields may contain commas, quotes, and line breaks.
+ */
+class CSVRowReader implements SPARQLResultsIterator.RowReader {
+
+	private final BufferedReader reader;
+	private final List<String> variables;
+
+	CSVRowReader(InputStream stream) throws IOException {
+		this.reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8));
+		List<String> header = readRecord();
+		this.variables = header == null ? new ArrayList<String>() : header;
+	}
+
+	@Override
+	public List<String> variables() {
+		return variables;
+	}
+
+	@Override
+	public Map<String,String> readRow() throws IOException {
+		List<String> fields = readRecord();
+		if (fields == null) return null;
+		Map<String,String> row = new LinkedHashMap<String,String>();
+		for (int i=0; i<fields.size() && i<variables.size(); i++) {
+			if (!fields.get(i).isEmpty()) row.put(variables.get(i), fields.get(i));
+		}
+		return row;
+	}
+
+	private List<String> readRecord() throws IOException {
+		int c = reader.read();
+		if (c == -1) return null;
+		List<String> fields = new ArrayList<String>();
+		StringBuilder field = new StringBuilder();
+		boolean quoted = false;
+		while (true) {
+			if (quoted) {
+				if (c == -1) throw new IOException("Unterminated quoted field in the CSV results.");
+				if (c == '"') {
+					reader.mark(1);
+					if (reader.read() == '"') {
+						field.append('"');
+					} else {
+						reader.reset();
+						quoted = false;
+					}
+				} else {
+					field.append((char)c);
+				}
+			} else if (c == '"') {
+				quoted = true;
+			} else if (c == ',') {
+				fields.add(field.toString());
+				field.setLength(0);
+			} else if (c == '\r' || c == '\n' || c == -1) {
+				if (c == '\r') {
+					reader.mark(1);
+					if (reader.read() != '\n') reader.reset();
+				}
+				fields.add(field.toString());
+				return fields;
+			} else {
+				field.append((char)c);
+			}
+			c = reader.read();
+		}
+	}
+
+	@Override
+	public void close() {
+		try {
+			reader.close();
+		} catch (IOException exception) {
+			// nothing left to read
+		}
+	}
+
+}
@@ -0,0 +1,111 @@
+/* Copyright (c) 2026  Egon Willighagen <egon.willighagen@gmail.com>
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contact: http://www.bioclipse.net/
+ */
+package net.bioclipse.managers.http;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Circuit breaker for a remote end point. After a number of consecutive failures
+ * the circuit opens and requests fail immediately, without waiting for an end point
+ * that is down. After a cool-down period one trial request is let through; when it
+ * succeeds the circuit closes again. Record one success or failure per call, after
+ * its retries, so that the retries of a single slow call do not open the circuit.
+ */
+public class CircuitBreaker {
+
+	private final static int FAILURE_THRESHOLD = 5;
+	private final static long OPEN_TIME = 60000;
+
+	private final static Map<String,CircuitBreaker> breakers = new ConcurrentHashMap<String,CircuitBreaker>();
+
+	private final String endpoint;
+	private int failures = 0;
+	private long openUntil = 0;
+	private boolean trialRunning = false;
+
+	private CircuitBreaker(String endpoint) {
+		this.endpoint = endpoint;
+	}
+
+	/**
+	 * Returns the circuit breaker for the given end point, shared by all managers.
+	 *
+	 * @param endpoint the URL of the end point
+	 * @return         the {@link CircuitBreaker} of the end point
+	 */
+	public static CircuitBreaker forEndpoint(String endpoint) {
+		return breakers.computeIfAbsent(endpoint, CircuitBreaker::new);
+	}
+
+	/**
+	 * Closes the circuits of all end points.
+	 */
+	public static void resetAll() {
+		breakers.clear();
+	}
+
+	/**
+	 * Checks if a request to the end point may be made. When the call is the trial
+	 * of a half-open circuit, the caller must end it with {@link #recordSuccess()},
+	 * {@link #recordFailure()}, or {@link #releaseTrial()}, e.g. in a finally block.
+	 *
+	 * @return true, if the call is the trial request
+	 * @throws IOException when the circuit is open
+	 */
+	public synchronized boolean checkAvailable() throws IOException {
+		if (failures < FAILURE_THRESHOLD) return false;
+		long now = System.currentTimeMillis();
+		if (now < openUntil || trialRunning) {
+			throw new IOException(
+				"The end point " + endpoint + " failed " + failures +
+				" times in a row and is not tried again for now."
+			);
+		}
+		trialRunning = true; // half open: let one request through
+		return true;
+	}
+
+	/**
+	 * Ends the trial request without recording a success or failure, for example
+	 * when it was interrupted or throttled, so that a next request can be the trial.
+	 */
+	public synchronized void releaseTrial() {
+		trialRunning = false;
+	}
+
+	/**
+	 * Records that a request to the end point succeeded.
+	 */
+	public synchronized void recordSuccess() {
+		failures = 0;
+		trialRunning = false;
+	}
+
+	/**
+	 * Records that a request to the end point failed.
+	 */
+	public synchronized void recordFailure() {
+		failures++;
+		trialRunning = false;
+		if (failures >= FAILURE_THRESHOLD) openUntil = System.currentTimeMillis() + OPEN_TIME;
+	}
+
+	/**
+	 * Returns true when requests to the end point currently fail immediately.
+	 *
+	 * @return true, if the circuit is open
+	 */
+	public synchronized boolean isOpen() {
+		return failures >= FAILURE_THRESHOLD && System.currentTimeMillis() < openUntil;
+	}
+
+}
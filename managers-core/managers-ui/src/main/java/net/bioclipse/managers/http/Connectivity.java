@@ -0,0 +1,154 @@
+/* Copyright (c) 2026  Egon Willighagen <egon.willighagen@gmail.com>
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contact: http://www.bioclipse.net/
+ */
+package net.bioclipse.managers.http;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.HttpURLConnection;
+import java.net.NoRouteToHostException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps track of whether the internet can be reached, shared by all managers. The
+ * state is learned from the requests made with the {@link SharedHttpClient}: any
+ * response means the network is up, while a host that cannot be resolved or reached
+ * makes the state unknown again. Only when the state is unknown are the probe URLs
+ * contacted, with short time outs. A state older than the maximal age is still
+ * returned, while it is refreshed in the background.
+ */
+public class Connectivity {
+
+	private static List<String> probeURLs = Arrays.asList(
+		"http://google.com/",
+		"http://slashdot.org/"
+	);
+	private static int timeout = 3000;
+	private static long maxAge = 60000;
+
+	private static volatile Boolean online = null;
+	private static volatile long checkedAt = 0;
+	private final static AtomicBoolean refreshing = new AtomicBoolean(false);
+
+	private Connectivity() {}
+
+	/**
+	 * Returns if the internet can be reached. Only probes when nothing is known
+	 * about the connectivity yet, or after a connection failure.
+	 *
+	 * @return true, if the internet can be reached
+	 */
+	public static boolean isOnline() {
+		Boolean known = online;
+		if (known == null) return refresh();
+		if (System.currentTimeMillis() - checkedAt > maxAge && refreshing.compareAndSet(false, true)) {
+			Thread.ofVirtual().name("connectivity-check").start(() -> {
+				try {
+					refresh();
+				} finally {
+					refreshing.set(false);
+				}
+			});
+		}
+		return known;
+	}
+
+	/**
+	 * Probes the probe URLs now and returns the result.
+	 *
+	 * @return true, if one of the probe URLs could be reached
+	 */
+	public static boolean refresh() {
+		List<String> sites;
+		int probeTimeout;
+		synchronized (Connectivity.class) {
+			sites = probeURLs;
+			probeTimeout = timeout;
+		}
+		boolean reached = false;
+		for (String site : sites) {
+			try {
+				URLConnection conn = new URL(site).openConnection();
+				conn.setConnectTimeout(probeTimeout);
+				conn.setReadTimeout(probeTimeout);
+				conn.setRequestProperty("User-Agent", SharedHttpClient.USER_AGENT);
+				if (conn instanceof HttpURLConnection) {
+					HttpURLConnection http = (HttpURLConnection)conn;
+					http.setRequestMethod("HEAD");
+					http.setInstanceFollowRedirects(false);
+					http.getResponseCode(); // any answer will do
+					http.disconnect();
+				} else {
+					conn.connect();
+				}
+				reached = true;
+				break;
+			} catch (Exception exception) {
+				// try the next site
+			}
+		}
+		online = reached;
+		checkedAt = System.currentTimeMillis();
+		return reached;
+	}
+
+	/**
+	 * Records that a server answered a request.
+	 */
+	public static void recordSuccess() {
+		online = true;
+		checkedAt = System.currentTimeMillis();
+	}
+
+	/**
+	 * Records that a request failed. When the failure suggests that the network
+	 * is down, the next {@link #isOnline()} probes again.
+	 *
+	 * @param exception the exception of the failed request
+	 */
+	public static void recordFailure(IOException exception) {
+		if (exception instanceof UnknownHostException ||
+			exception instanceof ConnectException ||
+			exception instanceof NoRouteToHostException) {
+			online = null;
+		}
+	}
+
+	/**
+	 * Configures how the connectivity is probed.
+	 *
+	 * @param probeURLs the URLs to contact, of which one must answer
+	 * @param timeout   the time in milliseconds to wait for each URL
+	 * @param maxAge    the time in milliseconds after which the state is refreshed
+	 */
+	public static synchronized void configure(List<String> probeURLs, int timeout, long maxAge) {
+		if (probeURLs == null || probeURLs.isEmpty())
+			throw new IllegalArgumentException("At least one probe URL is needed.");
+		Connectivity.probeURLs = Collections.unmodifiableList(new ArrayList<String>(probeURLs));
+		Connectivity.timeout = timeout;
+		Connectivity.maxAge = maxAge;
+		online = null;
+	}
+
+	/**
+	 * Forgets what is known about the connectivity.
+	 */
+	public static void reset() {
+		online = null;
+		checkedAt = 0;
+	}
+
+}
@@ -0,0 +1,373 @@
+/* Copyright (c) 2026  Egon Willighagen <egon.willighagen@gmail.com>
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contact: http://www.bioclipse.net/
+ */
+package net.bioclipse.managers.http;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.io.entity.HttpEntityWrapper;
+
+/**
+ * Statistics of the HTTP requests of all managers, per host: the number of requests,
+ * failures, status codes, bytes read, retries, cache hits, and a histogram of the
+ * time until the response headers arrived. Requests made with the {@link SharedHttpClient}
+ * are recorded automatically. The statistics can be read with {@link #getStatistics()},
+ * over JMX after {@link #registerMBean()}, or written to a JSON file at a regular
+ * interval with {@link #startDump(Path, long)}.
+ */
+public class HttpMetrics {
+
+	// upper bounds of the latency histogram buckets, in milliseconds
+	private final static long[] LATENCY_BUCKETS = {
+		10, 50, 100, 250, 500, 1000, 2500, 5000, 10000, 30000, 60000
+	};
+
+	private final static String MBEAN_NAME = "net.bioclipse.managers:type=HttpMetrics";
+
+	private static class HostMetrics {
+		final LongAdder requests = new LongAdder();
+		final LongAdder errors = new LongAdder();
+		final LongAdder bytes = new LongAdder();
+		final LongAdder retries = new LongAdder();
+		final LongAdder cacheHits = new LongAdder();
+		final LongAdder totalMillis = new LongAdder();
+		final AtomicLong maxMillis = new AtomicLong();
+		final LongAdder[] latency = new LongAdder[LATENCY_BUCKETS.length + 1];
+		final Map<Integer,LongAdder> statusCodes = new ConcurrentHashMap<Integer,LongAdder>();
+
+		HostMetrics() {
+			for (int i=0; i<latency.length; i++) latency[i] = new LongAdder();
+		}
+
+		void recordLatency(long millis) {
+			totalMillis.add(millis);
+			maxMillis.accumulateAndGet(millis, Math::max);
+			int bucket = 0;
+			while (bucket < LATENCY_BUCKETS.length && millis > LATENCY_BUCKETS[bucket]) bucket++;
+			latency[bucket].increment();
+		}
+
+		Map<String,Long> toMap() {
+			Map<String,Long> statistics = new TreeMap<String,Long>();
+			statistics.put("requests", requests.sum());
+			statistics.put("errors", errors.sum());
+			statistics.put("bytes", bytes.sum());
+			statistics.put("retries", retries.sum());
+			statistics.put("cacheHits", cacheHits.sum());
+			statistics.put("totalMillis", totalMillis.sum());
+			statistics.put("maxMillis", maxMillis.get());
+			for (int i=0; i<LATENCY_BUCKETS.length; i++) {
+				statistics.put("latency.le" + LATENCY_BUCKETS[i], latency[i].sum());
+			}
+			statistics.put("latency.gt" + LATENCY_BUCKETS[LATENCY_BUCKETS.length-1], latency[LATENCY_BUCKETS.length].sum());
+			for (Map.Entry<Integer,LongAdder> status : statusCodes.entrySet()) {
+				statistics.put("status." + status.getKey(), status.getValue().sum());
+			}
+			return statistics;
+		}
+	}
+
+	private final static Map<String,HostMetrics> hosts = new ConcurrentHashMap<String,HostMetrics>();
+	private static ScheduledExecutorService dumper;
+	private static Path dumpFile;
+
+	private HttpMetrics() {}
+
+	private static HostMetrics forHost(String host) {
+		return hosts.computeIfAbsent(host == null ? "unknown" : host, key -> new HostMetrics());
+	}
+
+	/**
+	 * Returns the host of the given URL, as used for the statistics.
+	 *
+	 * @param url the URL
+	 * @return    the host, or "unknown" when the URL has none
+	 */
+	public static String host(String url) {
+		try {
+			String host = URI.create(url).getHost();
+			return host == null ? "unknown" : host;
+		} catch (IllegalArgumentException exception) {
+			return "unknown";
+		}
+	}
+
+	/**
+	 * Records a response.
+	 *
+	 * @param host       the host that responded
+	 * @param statusCode the HTTP status code of the response
+	 * @param nanos      the time in nanoseconds until the response headers arrived
+	 */
+	public static void recordResponse(String host, int statusCode, long nanos) {
+		HostMetrics metrics = forHost(host);
+		metrics.requests.increment();
+		metrics.statusCodes.computeIfAbsent(statusCode, key -> new LongAdder()).increment();
+		metrics.recordLatency(TimeUnit.NANOSECONDS.toMillis(nanos));
+	}
+
+	/**
+	 * Records a request that failed without a response.
+	 *
+	 * @param host  the host of the request
+	 * @param nanos the time in nanoseconds until the request failed
+	 */
+	public static void recordError(String host, long nanos) {
+		HostMetrics metrics = forHost(host);
+		metrics.errors.increment();
+		metrics.recordLatency(TimeUnit.NANOSECONDS.toMillis(nanos));
+	}
+
+	/**
+	 * Records a request that is tried again.
+	 *
+	 * @param host the host of the request
+	 */
+	public static void recordRetry(String host) {
+		forHost(host).retries.increment();
+	}
+
+	/**
+	 * Records a request that was answered from a cache instead of by the host.
+	 *
+	 * @param host the host of the request
+	 */
+	public static void recordCacheHit(String host) {
+		forHost(host).cacheHits.increment();
+	}
+
+	/**
+	 * Wraps the entity of a response so that the bytes read from it are recorded.
+	 *
+	 * @param host   the host that responded
+	 * @param entity the entity of the response
+	 * @return       an entity with the same content
+	 */
+	public static HttpEntity countBytes(String host, HttpEntity entity) {
+		HostMetrics metrics = forHost(host);
+		return new HttpEntityWrapper(entity) {
+			@Override
+			public InputStream getContent() throws IOException {
+				return new FilterInputStream(super.getContent()) {
+					@Override
+					public int read() throws IOException {
+						int b = super.read();
+						if (b != -1) metrics.bytes.increment();
+						return b;
+					}
+					@Override
+					public int read(byte[] buffer, int offset, int length) throws IOException {
+						int read = super.read(buffer, offset, length);
+						if (read > 0) metrics.bytes.add(read);
+						return read;
+					}
+				};
+			}
+			@Override
+			public void writeTo(OutputStream stream) throws IOException {
+				try (InputStream content = getContent()) {
+					content.transferTo(stream);
+				}
+			}
+		};
+	}
+
+	/**
+	 * Returns the statistics per host. For each host, the map has the number of
+	 * "requests" with a response, "errors" without a response, "bytes" read, "retries",
+	 * "cacheHits", the "totalMillis" and "maxMillis" until the response headers, the
+	 * number of responses per status code, like "status.200", and a latency histogram,
+	 * like "latency.le100" for the number of responses within 100 milliseconds.
+	 *
+	 * @return a {@link Map} from host to its statistics
+	 */
+	public static Map<String,Map<String,Long>> getStatistics() {
+		Map<String,Map<String,Long>> statistics = new TreeMap<String,Map<String,Long>>();
+		for (Map.Entry<String,HostMetrics> host : hosts.entrySet()) {
+			statistics.put(host.getKey(), host.getValue().toMap());
+		}
+		return statistics;
+	}
+
+	/**
+	 * Returns the statistics per host as a JSON object, with the time they were taken.
+	 *
+	 * @return a JSON {@link String}
+	 */
+	public static String toJSON() {
+		StringBuilder json = new StringBuilder();
+		json.append("{\"time\":\"").append(Instant.now()).append("\",\"hosts\":{");
+		boolean firstHost = true;
+		for (Map.Entry<String,Map<String,Long>> host : getStatistics().entrySet()) {
+			if (!firstHost) json.append(',');
+			firstHost = false;
+			appendString(json, host.getKey());
+			json.append(":{");
+			boolean firstValue = true;
+			for (Map.Entry<String,Long> value : host.getValue().entrySet()) {
+				if (!firstValue) json.append(',');
+				firstValue = false;
+				appendString(json, value.getKey());
+				json.append(':').append(value.getValue());
+			}
+			json.append('}');
+		}
+		return json.append("}}").toString();
+	}
+
+	private static void appendString(StringBuilder json, String string) {
+		json.append('"');
+		for (char c : string.toCharArray()) {
+			if (c == '"' || c == '\\') {
+				json.append('\\').append(c);
+			} else if (c < 0x20) {
+				json.append(String.format("\\u%04x", (int)c));
+			} else {
+				json.append(c);
+			}
+		}
+		json.append('"');
+	}
+
+	/**
+	 * Forgets all recorded statistics.
+	 */
+	public static void reset() {
+		hosts.clear();
+	}
+
+	/**
+	 * Makes the statistics available over JMX, as
+	 * <code>net.bioclipse.managers:type=HttpMetrics</code>.
+	 *
+	 * @throws IOException when the MBean could not be registered
+	 */
+	public static synchronized void registerMBean() throws IOException {
+		try {
+			ManagementFactory.getPlatformMBeanServer().registerMBean(new MXBean(), new ObjectName(MBEAN_NAME));
+		} catch (InstanceAlreadyExistsException exception) {
+			// already registered
+		} catch (JMException exception) {
+			throw new IOException("Could not register the HTTP metrics MBean: " + exception.getMessage(), exception);
+		}
+	}
+
+	/**
+	 * Writes the statistics as JSON to the given file at a regular interval, until
+	 * {@link #stopDump()} is called. The file is replaced each time.
+	 *
+	 * @param file     the file to write to
+	 * @param interval the time in milliseconds between two writes
+	 */
+	public static synchronized void startDump(Path file, long interval) {
+		if (interval < 1) throw new IllegalArgumentException("The interval must be positive.");
+		stopDump();
+		dumpFile = file;
+		dumper = Executors.newSingleThreadScheduledExecutor(task -> {
+			Thread thread = new Thread(task, "http-metrics-dump");
+			thread.setDaemon(true);
+			return thread;
+		});
+		dumper.scheduleAtFixedRate(() -> {
+			try {
+				dump(file);
+			} catch (IOException exception) {
+				// try again the next time
+			}
+		}, interval, interval, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Stops writing the statistics to a file, after writing them one last time.
+	 */
+	public static synchronized void stopDump() {
+		if (dumper == null) return;
+		dumper.shutdownNow();
+		dumper = null;
+		try {
+			dump(dumpFile);
+		} catch (IOException exception) {
+			// nothing to be done
+		}
+	}
+
+	/**
+	 * Writes the statistics as JSON to the given file.
+	 *
+	 * @param file the file to write to
+	 * @throws IOException when the file could not be written
+	 */
+	public static void dump(Path file) throws IOException {
+		Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+		Files.write(temporary, toJSON().getBytes(StandardCharsets.UTF_8));
+		try {
+			Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException exception) {
+			Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	private static class MXBean implements HttpMetricsMXBean {
+
+		private long sum(String key) {
+			long sum = 0;
+			for (Map<String,Long> host : getStatistics().values()) sum += host.get(key);
+			return sum;
+		}
+
+		@Override
+		public long getRequests() { return sum("requests"); }
+
+		@Override
+		public long getErrors() { return sum("errors"); }
+
+		@Override
+		public long getBytes() { return sum("bytes"); }
+
+		@Override
+		public long getRetries() { return sum("retries"); }
+
+		@Override
+		public long getCacheHits() { return sum("cacheHits"); }
+
+		@Override
+		public Map<String,Map<String,Long>> getHosts() { return getStatistics(); }
+
+		@Override
+		public String getJSON() { return toJSON(); }
+
+		@Override
+		public void reset() { HttpMetrics.reset(); }
+	}
+
+}
@@ -0,0 +1,44 @@
+/* Copyright (c) 2026  Egon Willighagen <egon.willighagen@gmail.com>
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contact: http://www.bioclipse.net/
+ */
+package net.bioclipse.managers.http;
+
+import java.util.Map;
+
+/**
+ * JMX view on the {@link HttpMetrics}, registered as
+ * <code>net.bioclipse.managers:type=HttpMetrics</code>.
+ */
+public interface HttpMetricsMXBean {
+
+	/** Returns the number of requests that got a response. */
+	long getRequests();
+
+	/** Returns the number of requests that failed without a response. */
+	long getErrors();
+
+	/** Returns the number of bytes read from responses. */
+	long getBytes();
+
+	/** Returns the number of retried requests. */
+	long getRetries();
+
+	/** Returns the number of requests answered from a cache. */
+	long getCacheHits();
+
+	/** Returns the statistics per host, see {@link HttpMetrics#getStatistics()}. */
+	Map<String,Map<String,Long>> getHosts();
+
+	/** Returns the statistics per host as JSON. */
+	String getJSON();
+
+	/** Forgets all recorded statistics. */
+	void reset();
+
+}
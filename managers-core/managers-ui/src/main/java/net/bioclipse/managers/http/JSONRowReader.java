@@ -0,0 +1,242 @@
+/* Copyright (c) 2026  Egon Willighagen <egon.willighagen@gmail.com>
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contact: http://www.bioclipse.net/
+ */
+package net.bioclipse.managers.http;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads rows from the SPARQL Query Results JSON format. Only the bindings are
+ * parsed one at a time; everything around them is skipped. The variables are
+ * known when the head comes before the results, as all end points write it.
+ */
+class JSONRowReader implements SPARQLResultsIterator.RowReader {
+
+	private final BufferedReader reader;
+	private final List<String> variables = new ArrayList<String>();
+	private int peeked = -2;
+	private boolean inBindings = false;
+
+	JSONRowReader(InputStream stream) throws IOException {
+		this.reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8));
+		expect('{');
+		if (peek() == '}') return;
+		do {
+			String key = readString();
+			expect(':');
+			if ("head".equals(key)) {
+				readHead();
+			} else if ("results".equals(key)) {
+				expect('{');
+				if (peek() == '}') {
+					read();
+					continue;
+				}
+				do {
+					String resultsKey = readString();
+					expect(':');
+					if ("bindings".equals(resultsKey)) {
+						expect('[');
+						inBindings = true;
+						return;
+					}
+					skipValue();
+				} while (readSeparator('}'));
+			} else {
+				skipValue();
+			}
+		} while (readSeparator('}'));
+	}
+
+	private void readHead() throws IOException {
+		expect('{');
+		if (peek() == '}') {
+			read();
+			return;
+		}
+		do {
+			String key = readString();
+			expect(':');
+			if ("vars".equals(key)) {
+				expect('[');
+				if (peek() == ']') {
+					read();
+				} else {
+					do {
+						variables.add(readString());
+					} while (readSeparator(']'));
+				}
+			} else {
+				skipValue();
+			}
+		} while (readSeparator('}'));
+	}
+
+	@Override
+	public List<String> variables() {
+		return variables;
+	}
+
+	@Override
+	public Map<String,String> readRow() throws IOException {
+		if (!inBindings) return null;
+		int c = peek();
+		if (c == ']') {
+			inBindings = false; // the rest of the document is not needed
+			return null;
+		}
+		if (c == ',') read();
+		expect('{');
+		Map<String,String> row = new LinkedHashMap<String,String>();
+		if (peek() == '}') {
+			read();
+			return row;
+		}
+		do {
+			String variable = readString();
+			expect(':');
+			String value = null;
+			expect('{');
+			if (peek() != '}') {
+				do {
+					String key = readString();
+					expect(':');
+					if ("value".equals(key)) {
+						value = readString();
+					} else {
+						skipValue();
+					}
+				} while (readSeparator('}'));
+			} else {
+				read();
+			}
+			if (value != null) row.put(variable, value);
+		} while (readSeparator('}'));
+		return row;
+	}
+
+	/** Reads a comma and returns true, or reads the closing character and returns false. */
+	private boolean readSeparator(char closing) throws IOException {
+		int c = read();
+		if (c == ',') return true;
+		if (c == closing) return false;
+		throw unexpected(c);
+	}
+
+	private void skipValue() throws IOException {
+		int c = peek();
+		if (c == '"') {
+			readString();
+		} else if (c == '{' || c == '[') {
+			char closing = c == '{' ? '}' : ']';
+			read();
+			if (peek() == closing) {
+				read();
+				return;
+			}
+			do {
+				if (closing == '}') {
+					readString();
+					expect(':');
+				}
+				skipValue();
+			} while (readSeparator(closing));
+		} else {
+			// numbers, true, false, and null
+			while (c != ',' && c != '}' && c != ']' && c != -1) {
+				read();
+				c = peek();
+			}
+		}
+	}
+
+	private String readString() throws IOException {
+		expect('"');
+		StringBuilder string = new StringBuilder();
+		while (true) {
+			int c = reader.read();
+			if (c == -1) throw new IOException("Unterminated string in the JSON results.");
+			if (c == '"') return string.toString();
+			if (c != '\\') {
+				string.append((char)c);
+				continue;
+			}
+			c = reader.read();
+			switch (c) {
+				case 'b': string.append('\b'); break;
+				case 'f': string.append('\f'); break;
+				case 'n': string.append('\n'); break;
+				case 'r': string.append('\r'); break;
+				case 't': string.append('\t'); break;
+				case 'u':
+					char[] hex = new char[4];
+					for (int i=0; i<4; i++) {
+						int digit = reader.read();
+						if (digit == -1) throw new IOException("Unterminated string in the JSON results.");
+						hex[i] = (char)digit;
+					}
+					try {
+						string.append((char)Integer.parseInt(new String(hex), 16));
+					} catch (NumberFormatException exception) {
+						throw new IOException("Invalid escape in the JSON results: \\u" + new String(hex), exception);
+					}
+					break;
+				case -1: throw new IOException("Unterminated string in the JSON results.");
+				default: string.append((char)c);
+			}
+		}
+	}
+
+	private void expect(char expected) throws IOException {
+		int c = read();
+		if (c != expected) throw unexpected(c);
+	}
+
+	private IOException unexpected(int c) {
+		return new IOException(
+			"Error while parsing the SPARQL results: unexpected " +
+			(c == -1 ? "end of the JSON" : "'" + (char)c + "' in the JSON")
+		);
+	}
+
+	/** Returns the next character that is not whitespace, without consuming it. */
+	private int peek() throws IOException {
+		if (peeked == -2) {
+			int c = reader.read();
+			while (c == ' ' || c == '\t' || c == '\n' || c == '\r') c = reader.read();
+			peeked = c;
+		}
+		return peeked;
+	}
+
+	/** Reads the next character that is not whitespace. */
+	private int read() throws IOException {
+		int c = peek();
+		peeked = -2;
+		return c;
+	}
+
+	@Override
+	public void close() {
+		try {
+			reader.close();
+		} catch (IOException exception) {
+			// nothing left to read
+		}
+	}
+
+}
@@ -0,0 +1,437 @@
+/* Copyright (c) 2026  Egon Willighagen <egon.willighagen@gmail.com>
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contact: http://www.bioclipse.net/
+ */
+package net.bioclipse.managers.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.hc.client5.http.classic.methods.HttpGet;
+import org.apache.hc.client5.http.classic.methods.HttpHead;
+import org.apache.hc.client5.http.classic.methods.HttpUriRequestBase;
+import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.io.entity.EntityUtils;
+
+/**
+ * Downloads a large file in parallel segments with HTTP range requests. Each segment
+ * is written at its own position in a partial file next to the target, and the
+ * progress is kept in a side-car state file, so that an interrupted download continues
+ * where it stopped when it is started again. Dropped connections are resumed from the
+ * last byte received. When the server does not support range requests, the file is
+ * downloaded in one go. Finally, the size and, if given, the checksum are verified
+ * before the partial file is moved to the target.
+ */
+public class RangedDownload {
+
+	/** Segments are not made smaller than this number of bytes. */
+	public final static long MIN_SEGMENT_SIZE = 1024 * 1024;
+
+	private final static int BUFFER_SIZE = 1 << 16;
+	// the progress of a segment is saved after this number of bytes
+	private final static long STATE_INTERVAL = 4 * 1024 * 1024;
+
+	private final String url;
+	private final Map<String,String> headers;
+	private final Path target;
+	private final Path part;
+	private final Path state;
+	private final int maxSegments;
+	private final String checksumAlgorithm;
+	private final String checksum;
+	private final RetryPolicy retryPolicy;
+
+	private long length = -1;
+	private boolean acceptsRanges = false;
+	private String validator = null;
+	private List<Segment> segments = new ArrayList<Segment>();
+	private volatile boolean aborted = false;
+
+	private static class Segment {
+		final long start;
+		final long end; // inclusive
+		volatile long position;
+
+		Segment(long start, long end, long position) {
+			this.start = start;
+			this.end = end;
+			this.position = position;
+		}
+
+		boolean isDone() {
+			return position > end;
+		}
+	}
+
+	/**
+	 * Thrown when the server did not return the requested range.
+	 */
+	private static class RangeException extends IOException {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int statusCode;
+		private final Header retryAfter;
+
+		private RangeException(int statusCode, Header retryAfter, String message) {
+			super(message);
+			this.statusCode = statusCode;
+			this.retryAfter = retryAfter;
+		}
+	}
+
+	/**
+	 * Creates a new download. The partial file and the state file are stored next to
+	 * the target, with the extensions ".part" and ".part.state".
+	 *
+	 * @param url         the URL of the file to download
+	 * @param headers     additional HTTP headers, or null
+	 * @param target      the file to download to
+	 * @param maxSegments the maximal number of segments downloaded in parallel
+	 * @param checksum    the expected checksum as algorithm and hexadecimal digest, e.g.
+	 *                    "SHA-256:9f86d0...", or null to only verify the size
+	 * @param retryPolicy decides when a failed segment is tried again
+	 * @throws IllegalArgumentException when the checksum algorithm is not supported
+	 */
+	public RangedDownload(String url, Map<String,String> headers, Path target, int maxSegments,
+			String checksum, RetryPolicy retryPolicy) {
+		if (maxSegments < 1)
+			throw new IllegalArgumentException("At least one segment is needed.");
+		this.url = url;
+		this.headers = headers;
+		this.target = target;
+		this.part = target.resolveSibling(target.getFileName() + ".part");
+		this.state = target.resolveSibling(target.getFileName() + ".part.state");
+		this.maxSegments = maxSegments;
+		this.retryPolicy = retryPolicy;
+		if (checksum == null) {
+			this.checksumAlgorithm = null;
+			this.checksum = null;
+		} else {
+			int separator = checksum.indexOf(':');
+			if (separator < 0)
+				throw new IllegalArgumentException("Expected a checksum like SHA-256:<digest>, but got: " + checksum);
+			this.checksumAlgorithm = checksum.substring(0, separator).trim();
+			this.checksum = checksum.substring(separator + 1).trim();
+			try {
+				MessageDigest.getInstance(checksumAlgorithm);
+			} catch (NoSuchAlgorithmException exception) {
+				throw new IllegalArgumentException("Unsupported checksum algorithm: " + checksumAlgorithm, exception);
+			}
+		}
+	}
+
+	/**
+	 * Downloads the file, continuing an earlier download of the same file if its
+	 * partial file and state are still there and the file did not change on the server.
+	 *
+	 * @return the target
+	 * @throws IOException when the file could not be downloaded or did not verify
+	 */
+	public Path download() throws IOException {
+		probe();
+		if (length < 0 || !acceptsRanges) {
+			downloadAtOnce();
+		} else {
+			if (!loadState()) createSegments();
+			downloadSegments();
+		}
+		verify();
+		Files.deleteIfExists(state);
+		try {
+			Files.move(part, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException exception) {
+			Files.move(part, target, StandardCopyOption.REPLACE_EXISTING);
+		}
+		return target;
+	}
+
+	/**
+	 * Asks the server for the size of the file, if it supports range requests, and
+	 * for the ETag or Last-Modified date to detect if the file changed.
+	 */
+	private void probe() throws IOException {
+		HttpHead request = new HttpHead(url);
+		addHeaders(request);
+		SharedHttpClient.get().execute(request, response -> {
+			if (response.getCode() != 200) return null; // the GET will tell what is wrong
+			Header contentLength = response.getFirstHeader("Content-Length");
+			if (contentLength != null) {
+				try {
+					length = Long.parseLong(contentLength.getValue().trim());
+				} catch (NumberFormatException exception) {
+					length = -1;
+				}
+			}
+			Header ranges = response.getFirstHeader("Accept-Ranges");
+			acceptsRanges = ranges != null && ranges.getValue().trim().equalsIgnoreCase("bytes");
+			// If-Range only accepts strong ETags and dates
+			Header etag = response.getFirstHeader("ETag");
+			Header lastModified = response.getFirstHeader("Last-Modified");
+			if (etag != null && !etag.getValue().startsWith("W/")) {
+				validator = etag.getValue();
+			} else if (lastModified != null) {
+				validator = lastModified.getValue();
+			}
+			return null;
+		});
+	}
+
+	private void addHeaders(HttpUriRequestBase request) {
+		if (headers != null) {
+			for (String header : headers.keySet()) {
+				request.addHeader(header, headers.get(header));
+			}
+		}
+		// ranges and lengths are about the bytes as stored on the server
+		request.setHeader("Accept-Encoding", "identity");
+	}
+
+	private void downloadAtOnce() throws IOException {
+		Files.deleteIfExists(state);
+		HttpGet request = new HttpGet(url);
+		addHeaders(request);
+		SharedHttpClient.get().execute(request, response -> {
+			int statusCode = response.getCode();
+			if (statusCode != 200) {
+				EntityUtils.consume(response.getEntity());
+				throw new IOException(
+					"Server returned HTTP response code: " + statusCode + " for URL: " + url
+				);
+			}
+			try (InputStream stream = response.getEntity().getContent()) {
+				Files.copy(stream, part, StandardCopyOption.REPLACE_EXISTING);
+			}
+			return null;
+		});
+	}
+
+	/**
+	 * Reads the progress of an earlier download of the same file.
+	 *
+	 * @return false, if there is no earlier download to continue
+	 */
+	private boolean loadState() {
+		if (validator == null || !Files.exists(state) || !Files.exists(part)) return false;
+		Properties properties = new Properties();
+		try (InputStream stream = Files.newInputStream(state)) {
+			properties.load(stream);
+			if (!url.equals(properties.getProperty("url")) ||
+				!Long.toString(length).equals(properties.getProperty("length")) ||
+				!validator.equals(properties.getProperty("validator"))) return false;
+			List<Segment> previous = new ArrayList<Segment>();
+			int count = Integer.parseInt(properties.getProperty("segments"));
+			for (int i=0; i<count; i++) {
+				String[] fields = properties.getProperty("segment." + i).split(",");
+				previous.add(new Segment(
+					Long.parseLong(fields[0]), Long.parseLong(fields[1]), Long.parseLong(fields[2])
+				));
+			}
+			this.segments = previous;
+			return true;
+		} catch (IOException | RuntimeException exception) {
+			return false; // start over
+		}
+	}
+
+	private void createSegments() throws IOException {
+		Files.deleteIfExists(part);
+		long count = Math.max(1, Math.min(maxSegments, length / MIN_SEGMENT_SIZE));
+		long size = (length + count - 1) / count;
+		segments = new ArrayList<Segment>();
+		for (long start = 0; start < length; start += size) {
+			segments.add(new Segment(start, Math.min(length, start + size) - 1, start));
+		}
+		saveState();
+	}
+
+	private synchronized void saveState() throws IOException {
+		Properties properties = new Properties();
+		properties.setProperty("url", url);
+		properties.setProperty("length", Long.toString(length));
+		if (validator != null) properties.setProperty("validator", validator);
+		properties.setProperty("segments", Integer.toString(segments.size()));
+		for (int i=0; i<segments.size(); i++) {
+			Segment segment = segments.get(i);
+			properties.setProperty("segment." + i, segment.start + "," + segment.end + "," + segment.position);
+		}
+		Path temporary = state.resolveSibling(state.getFileName() + ".tmp");
+		try (OutputStream stream = Files.newOutputStream(temporary)) {
+			properties.store(stream, "Progress of the download of " + url);
+		}
+		try {
+			Files.move(temporary, state, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException exception) {
+			Files.move(temporary, state, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	private void downloadSegments() throws IOException {
+		aborted = false;
+		IOException failure = null;
+		try (FileChannel channel = FileChannel.open(part, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+			try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+				List<Future<Void>> futures = new ArrayList<Future<Void>>();
+				for (Segment segment : segments) {
+					if (segment.isDone()) continue;
+					futures.add(executor.submit(() -> {
+						downloadSegment(channel, segment);
+						return null;
+					}));
+				}
+				for (Future<Void> future : futures) {
+					try {
+						future.get();
+					} catch (ExecutionException exception) {
+						aborted = true;
+						if (failure == null) {
+							failure = exception.getCause() instanceof IOException
+								? (IOException)exception.getCause()
+								: new IOException(exception.getCause());
+						}
+					} catch (InterruptedException exception) {
+						aborted = true;
+						Thread.currentThread().interrupt();
+						if (failure == null) failure = new InterruptedIOException("Interrupted while downloading.");
+					}
+				}
+			}
+			channel.force(false);
+		}
+		saveState();
+		if (failure != null) throw failure;
+	}
+
+	private void downloadSegment(FileChannel channel, Segment segment) throws IOException {
+		for (int attempt = 0; ; attempt++) {
+			long before = segment.position;
+			try {
+				readRange(channel, segment);
+				return;
+			} catch (IOException exception) {
+				if (aborted) throw exception;
+				boolean retryable = exception instanceof RangeException
+					? RetryPolicy.isRetryable(((RangeException)exception).statusCode)
+					: true; // dropped connections and time outs continue where they stopped
+				if (segment.position > before) attempt = 0; // it made progress
+				if (!retryable || attempt >= retryPolicy.getMaxRetries()) {
+					aborted = true;
+					throw exception;
+				}
+				Header retryAfter = exception instanceof RangeException
+					? ((RangeException)exception).retryAfter : null;
+				HttpMetrics.recordRetry(HttpMetrics.host(url));
+				RetryPolicy.sleep(retryPolicy.delay(attempt, retryAfter));
+			}
+		}
+	}
+
+	private void readRange(FileChannel channel, Segment segment) throws IOException {
+		HttpGet request = new HttpGet(url);
+		addHeaders(request);
+		request.setHeader("Range", "bytes=" + segment.position + "-" + segment.end);
+		if (validator != null) request.setHeader("If-Range", validator);
+		ClassicHttpResponse response = SharedHttpClient.get().executeOpen(null, request, null);
+		try {
+			int statusCode = response.getCode();
+			if (statusCode == 200) {
+				throw new RangeException(statusCode, null,
+					"The server sent the whole file instead of a range; it may have changed: " + url
+				);
+			} else if (statusCode != 206) {
+				throw new RangeException(statusCode, response.getFirstHeader("Retry-After"),
+					"Server returned HTTP response code: " + statusCode + " for URL: " + url
+				);
+			}
+			Header contentRange = response.getFirstHeader("Content-Range");
+			if (contentRange == null || !contentRange.getValue().startsWith("bytes " + segment.position + "-")) {
+				throw new RangeException(statusCode, null,
+					"Unexpected Content-Range " + (contentRange == null ? "" : contentRange.getValue()) +
+					" for URL: " + url
+				);
+			}
+			byte[] buffer = new byte[BUFFER_SIZE];
+			long saved = segment.position;
+			InputStream stream = response.getEntity().getContent();
+			while (!segment.isDone() && !aborted) {
+				int read = stream.read(buffer, 0, (int)Math.min(buffer.length, segment.end - segment.position + 1));
+				if (read == -1) break;
+				ByteBuffer data = ByteBuffer.wrap(buffer, 0, read);
+				long position = segment.position;
+				while (data.hasRemaining()) position += channel.write(data, position);
+				segment.position = position;
+				if (segment.position - saved >= STATE_INTERVAL) {
+					channel.force(false);
+					saveState();
+					saved = segment.position;
+				}
+			}
+			if (aborted) throw new InterruptedIOException("Download stopped.");
+			if (!segment.isDone())
+				throw new IOException("Connection closed at byte " + segment.position + " of " + url);
+		} finally {
+			// do not read the rest of a response that is not needed
+			if (!segment.isDone()) request.cancel();
+			response.close();
+		}
+	}
+
+	private void verify() throws IOException {
+		long size = Files.size(part);
+		if (length >= 0 && size != length) {
+			Files.deleteIfExists(part);
+			Files.deleteIfExists(state);
+			throw new IOException("Downloaded " + size + " bytes, but expected " + length + " bytes from " + url);
+		}
+		if (checksumAlgorithm == null) return;
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance(checksumAlgorithm);
+		} catch (NoSuchAlgorithmException exception) {
+			throw new IOException(exception); // checked in the constructor
+		}
+		try (FileChannel channel = FileChannel.open(part, StandardOpenOption.READ)) {
+			ByteBuffer buffer = ByteBuffer.allocate(1 << 20);
+			while (channel.read(buffer) != -1) {
+				buffer.flip();
+				digest.update(buffer);
+				buffer.clear();
+			}
+		}
+		String actual = HexFormat.of().formatHex(digest.digest());
+		if (!actual.equalsIgnoreCase(checksum)) {
+			Files.deleteIfExists(part);
+			Files.deleteIfExists(state);
+			throw new IOException(
+				"Checksum mismatch for " + url + ": expected " + checksum + ", but got " + actual
+			);
+		}
+	}
+
+}
@@ -0,0 +1,324 @@
+/* Copyright (c) 2026  Egon Willighagen <egon.willighagen@gmail.com>
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contact: http://www.bioclipse.net/
+ */
+package net.bioclipse.managers.http;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cache of downloaded content stored on disk, so that it survives between
+ * runs. Entries are gzipped, expire after a time-to-live, and the least
+ * recently used entries are removed when the cache grows beyond its maximal
+ * size. Entries are compressed and decompressed in parallel; only the index
+ * of the entries is shared between threads.
+ */
+public class ResponseCache {
+
+	private final static String SUFFIX = ".gz";
+
+	private final Path directory;
+	private final long maxBytes;
+	private final long timeToLive;
+
+	// file name to size on disk, in least recently used order
+	private final LinkedHashMap<String,Long> index = new LinkedHashMap<String,Long>(16, 0.75f, true);
+	private long totalBytes = 0;
+	private long hits = 0;
+	private long misses = 0;
+	private long evictions = 0;
+
+	/**
+	 * Creates a cache in the given directory, reusing the entries already stored there.
+	 *
+	 * @param directory  the directory where the cache is stored
+	 * @param maxBytes   the maximal size of the cache on disk, in bytes
+	 * @param timeToLive the time in milliseconds after which an entry expires
+	 * @throws IOException when the directory could not be created or read
+	 */
+	public ResponseCache(String directory, long maxBytes, long timeToLive) throws IOException {
+		this.directory = Paths.get(directory);
+		this.maxBytes = maxBytes;
+		this.timeToLive = timeToLive;
+		Files.createDirectories(this.directory);
+
+		List<Path> files;
+		try (Stream<Path> entries = Files.list(this.directory)) {
+			files = entries
+				.filter(file -> file.getFileName().toString().endsWith(SUFFIX))
+				.sorted(Comparator.comparingLong(file -> file.toFile().lastModified()))
+				.collect(Collectors.toList());
+		}
+		for (Path file : files) {
+			long size = Files.size(file);
+			index.put(file.getFileName().toString(), size);
+			totalBytes += size;
+		}
+		evict();
+	}
+
+	/**
+	 * Returns the cached content for the given key.
+	 *
+	 * @param key the key, e.g. the URL and the requested content type
+	 * @return    the content, or null when not cached or expired
+	 */
+	public byte[] get(String key) {
+		return get(key, new long[1]);
+	}
+
+	/**
+	 * Returns the cached content for the given key, and puts the time at which
+	 * it was stored in the first element of the given array.
+	 *
+	 * @param key     the key, e.g. the URL and the requested content type
+	 * @param written the array that receives the time in milliseconds
+	 * @return        the content, or null when not cached or expired
+	 */
+	byte[] get(String key, long[] written) {
+		byte[][] content = new byte[1][];
+		return read(key, (gzip, time) -> {
+			content[0] = gzip.readAllBytes();
+			written[0] = time;
+		}) ? content[0] : null;
+	}
+
+	/**
+	 * Writes the cached content for the given key to a file, without reading it
+	 * into memory.
+	 *
+	 * @param key    the key, e.g. the URL and the requested content type
+	 * @param target the file to write the content to, replacing an existing file
+	 * @return       true, if the content was cached and written; false when not
+	 *               cached or expired
+	 */
+	public boolean get(String key, Path target) {
+		return read(key, (gzip, written) -> Files.copy(gzip, target, StandardCopyOption.REPLACE_EXISTING));
+	}
+
+	private interface ContentReader {
+		void read(InputStream input, long written) throws IOException;
+	}
+
+	private boolean read(String key, ContentReader content) {
+		String name = fileName(key);
+		Path file = directory.resolve(name);
+		InputStream input;
+		synchronized (this) {
+			if (index.get(name) == null) {
+				misses++;
+				return false;
+			}
+			try {
+				// an open file can still be read after it is replaced or evicted
+				input = Files.newInputStream(file);
+			} catch (IOException exception) {
+				remove(name);
+				misses++;
+				return false;
+			}
+		}
+		// the content is read without the lock, so that entries can be read in parallel
+		boolean found = false;
+		try (InputStream stream = input) {
+			long written = new DataInputStream(stream).readLong();
+			if (System.currentTimeMillis() - written <= timeToLive) {
+				try (GZIPInputStream gzip = new GZIPInputStream(stream)) {
+					content.read(gzip, written);
+					found = true;
+				}
+			}
+		} catch (IOException exception) {
+			// unreadable entries are treated as expired
+			found = false;
+		}
+		synchronized (this) {
+			if (!found) {
+				remove(name);
+				misses++;
+				return false;
+			}
+			hits++;
+		}
+		try {
+			// the modification time is used to restore the usage order in a next run
+			Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+		} catch (IOException exception) {
+			// only affects the eviction order
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the cached content for the given key as a {@link String}.
+	 *
+	 * @param key the key, e.g. the URL and the requested content type
+	 * @return    the content, or null when not cached or expired
+	 */
+	public String getString(String key) {
+		byte[] content = get(key);
+		return content == null ? null : new String(content, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Stores the content for the given key, replacing earlier content.
+	 *
+	 * @param key     the key, e.g. the URL and the requested content type
+	 * @param content the content to cache
+	 * @throws IOException when the content could not be written to disk
+	 */
+	public void put(String key, byte[] content) throws IOException {
+		store(key, gzip -> gzip.write(content));
+	}
+
+	/**
+	 * Stores the content of the given file for the given key, replacing earlier
+	 * content. The file is compressed into the cache without reading it into memory.
+	 *
+	 * @param key     the key, e.g. the URL and the requested content type
+	 * @param content the file with the content to cache
+	 * @throws IOException when the file could not be read or the content could not
+	 *                     be written to disk
+	 */
+	public void put(String key, Path content) throws IOException {
+		store(key, gzip -> Files.copy(content, gzip));
+	}
+
+	private interface ContentWriter {
+		void write(OutputStream output) throws IOException;
+	}
+
+	private void store(String key, ContentWriter content) throws IOException {
+		String name = fileName(key);
+		// the content is compressed without the lock, and then moved into place at once
+		Path temporary = Files.createTempFile(directory, "entry", ".tmp");
+		try {
+			try (OutputStream output = Files.newOutputStream(temporary)) {
+				DataOutputStream header = new DataOutputStream(output);
+				header.writeLong(System.currentTimeMillis());
+				header.flush();
+				try (GZIPOutputStream gzip = new GZIPOutputStream(output)) {
+					content.write(gzip);
+				}
+			}
+			long size = Files.size(temporary);
+			synchronized (this) {
+				moveIntoPlace(temporary, directory.resolve(name));
+				Long oldSize = index.put(name, size);
+				if (oldSize != null) totalBytes -= oldSize;
+				totalBytes += size;
+				evict();
+			}
+		} finally {
+			Files.deleteIfExists(temporary);
+		}
+	}
+
+	private static void moveIntoPlace(Path temporary, Path target) throws IOException {
+		try {
+			Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException exception) {
+			Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	/**
+	 * Stores the content for the given key as UTF-8, replacing earlier content.
+	 *
+	 * @param key     the key, e.g. the URL and the requested content type
+	 * @param content the content to cache
+	 * @throws IOException when the content could not be written to disk
+	 */
+	public void putString(String key, String content) throws IOException {
+		put(key, content.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Removes all entries from the cache.
+	 */
+	public synchronized void clear() {
+		for (String name : new ArrayList<String>(index.keySet())) remove(name);
+	}
+
+	/**
+	 * Returns statistics about the cache, with the keys "size", "bytes", "hits",
+	 * "misses", and "evictions".
+	 *
+	 * @return a {@link Map} with the cache statistics
+	 */
+	public synchronized Map<String,Long> getStatistics() {
+		Map<String,Long> statistics = new HashMap<String,Long>();
+		statistics.put("size", (long)index.size());
+		statistics.put("bytes", totalBytes);
+		statistics.put("hits", hits);
+		statistics.put("misses", misses);
+		statistics.put("evictions", evictions);
+		return statistics;
+	}
+
+	private void evict() {
+		Iterator<Map.Entry<String,Long>> entries = index.entrySet().iterator();
+		while (totalBytes > maxBytes && entries.hasNext()) {
+			Map.Entry<String,Long> eldest = entries.next();
+			totalBytes -= eldest.getValue();
+			entries.remove();
+			delete(eldest.getKey());
+			evictions++;
+		}
+	}
+
+	private void remove(String name) {
+		Long size = index.remove(name);
+		if (size != null) totalBytes -= size;
+		delete(name);
+	}
+
+	private void delete(String name) {
+		try {
+			Files.deleteIfExists(directory.resolve(name));
+		} catch (IOException exception) {
+			// the entry is no longer indexed, so it will not be used
+		}
+	}
+
+	private static String fileName(String key) {
+		try {
+			byte[] hash = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+			StringBuilder name = new StringBuilder();
+			for (byte b : hash) name.append(String.format("%02x", b));
+			return name.append(SUFFIX).toString();
+		} catch (NoSuchAlgorithmException exception) {
+			throw new IllegalStateException("SHA-256 is not available.", exception);
+		}
+	}
+
+}
@@ -0,0 +1,125 @@
+/* Copyright (c) 2026  Egon Willighagen <egon.willighagen@gmail.com>
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contact: http://www.bioclipse.net/
+ */
+package net.bioclipse.managers.http;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.apache.hc.client5.http.ConnectTimeoutException;
+import org.apache.hc.client5.http.utils.DateUtils;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.NoHttpResponseException;
+
+/**
+ * Decides if and when a failed HTTP request is tried again. Requests are retried
+ * when the server is busy or throttling (HTTP 429, 502, 503, and 504) or did not
+ * respond in time, after the time the server asks for in its Retry-After header,
+ * or otherwise after an exponential backoff with jitter.
+ */
+public class RetryPolicy {
+
+	private final int maxRetries;
+	private final long initialBackoff;
+	private final long maxBackoff;
+
+	/**
+	 * Creates a new retry policy.
+	 *
+	 * @param maxRetries     the maximal number of times a request is retried
+	 * @param initialBackoff the time in milliseconds to wait before the first retry
+	 * @param maxBackoff     the maximal time in milliseconds to wait before a retry
+	 */
+	public RetryPolicy(int maxRetries, long initialBackoff, long maxBackoff) {
+		this.maxRetries = maxRetries;
+		this.initialBackoff = initialBackoff;
+		this.maxBackoff = maxBackoff;
+	}
+
+	/**
+	 * Returns the maximal number of times a request is retried.
+	 *
+	 * @return the maximal number of retries
+	 */
+	public int getMaxRetries() {
+		return maxRetries;
+	}
+
+	/**
+	 * Returns true when a response with the given status code is worth retrying.
+	 *
+	 * @param statusCode the HTTP status code
+	 * @return           true, if the request should be retried
+	 */
+	public static boolean isRetryable(int statusCode) {
+		return statusCode == 429 || statusCode == 502 || statusCode == 503 || statusCode == 504;
+	}
+
+	/**
+	 * Returns true when a request that failed with the given exception is worth
+	 * retrying, because the server could not be reached or did not respond in time.
+	 *
+	 * @param exception the exception of the failed request
+	 * @return          true, if the request should be retried
+	 */
+	public static boolean isRetryable(IOException exception) {
+		return exception instanceof SocketTimeoutException ||
+			exception instanceof ConnectTimeoutException ||
+			exception instanceof ConnectException ||
+			exception instanceof NoRouteToHostException ||
+			exception instanceof NoHttpResponseException;
+	}
+
+	/**
+	 * Returns the time to wait before the given retry.
+	 *
+	 * @param attempt    the number of the retry, starting at zero
+	 * @param retryAfter the Retry-After header of the response, or null
+	 * @return           the time to wait in milliseconds
+	 */
+	public long delay(int attempt, Header retryAfter) {
+		if (retryAfter != null) {
+			String value = retryAfter.getValue().trim();
+			try {
+				return Math.min(maxBackoff, Long.parseLong(value) * 1000);
+			} catch (NumberFormatException exception) {
+				Instant date = DateUtils.parseStandardDate(value);
+				if (date != null) {
+					long millis = Duration.between(Instant.now(), date).toMillis();
+					return Math.max(0, Math.min(maxBackoff, millis));
+				}
+			}
+		}
+		long backoff = Math.min(maxBackoff, initialBackoff << Math.min(attempt, 30));
+		return backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+	}
+
+	/**
+	 * Waits the given time.
+	 *
+	 * @param millis the time to wait in milliseconds
+	 * @throws InterruptedIOException when the thread was interrupted while waiting
+	 */
+	public static void sleep(long millis) throws InterruptedIOException {
+		if (millis <= 0) return;
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException exception) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting to retry.");
+		}
+	}
+
+}
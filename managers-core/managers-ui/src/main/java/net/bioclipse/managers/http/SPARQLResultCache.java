@@ -0,0 +1,210 @@
+/* Copyright (c) 2026  Egon Willighagen <egon.willighagen@gmail.com>
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contact: http://www.bioclipse.net/
+ */
+package net.bioclipse.managers.http;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Cache of SPARQL query results, keyed by the end point, the extra HTTP headers,
+ * and the query with its whitespace normalized. The results are kept on disk
+ * in a {@link ResponseCache}, with the most recently used results also kept in
+ * memory.
+ */
+public class SPARQLResultCache {
+
+	private final ResponseCache disk;
+	private final long timeToLive;
+	private final long maxMemoryBytes;
+
+	// key to result, in least recently used order
+	private final LinkedHashMap<String,MemoryEntry> memory = new LinkedHashMap<String,MemoryEntry>(16, 0.75f, true);
+	private long memoryBytes = 0;
+	private long memoryHits = 0;
+
+	private static class MemoryEntry {
+		private final byte[] content;
+		private final long created;
+
+		private MemoryEntry(byte[] content, long created) {
+			this.content = content;
+			this.created = created;
+		}
+	}
+
+	/**
+	 * Creates a cache in the given directory, reusing the results already stored there.
+	 *
+	 * @param directory      the directory where the cache is stored
+	 * @param maxBytes       the maximal size of the cache on disk, in bytes
+	 * @param maxMemoryBytes the maximal size of the results kept in memory, in bytes
+	 * @param timeToLive     the time in milliseconds after which a result expires
+	 * @throws IOException when the directory could not be created or read
+	 */
+	public SPARQLResultCache(String directory, long maxBytes, long maxMemoryBytes, long timeToLive)
+			throws IOException {
+		this.disk = new ResponseCache(directory, maxBytes, timeToLive);
+		this.maxMemoryBytes = maxMemoryBytes;
+		this.timeToLive = timeToLive;
+	}
+
+	/**
+	 * Returns the cached results of the query, or null if the results are not
+	 * cached or have expired.
+	 *
+	 * @param endpoint     the URL of the SPARQL end point
+	 * @param query        the SPARQL query
+	 * @param extraHeaders the extra HTTP headers of the request, or null
+	 * @return             the results, or null
+	 */
+	public byte[] get(String endpoint, String query, Map<String,String> extraHeaders) {
+		String key = key(endpoint, query, extraHeaders);
+		synchronized (this) {
+			MemoryEntry entry = memory.get(key);
+			if (entry != null) {
+				if (System.currentTimeMillis() - entry.created <= timeToLive) {
+					memoryHits++;
+					return entry.content;
+				}
+				memory.remove(key);
+				memoryBytes -= entry.content.length;
+			}
+		}
+		long[] created = new long[1];
+		byte[] content = disk.get(key, created);
+		if (content != null) remember(key, content, created[0]);
+		return content;
+	}
+
+	/**
+	 * Adds the results of the query to the cache.
+	 *
+	 * @param endpoint     the URL of the SPARQL end point
+	 * @param query        the SPARQL query
+	 * @param extraHeaders the extra HTTP headers of the request, or null
+	 * @param content      the results
+	 * @throws IOException when the results could not be written to disk
+	 */
+	public void put(String endpoint, String query, Map<String,String> extraHeaders, byte[] content)
+			throws IOException {
+		String key = key(endpoint, query, extraHeaders);
+		disk.put(key, content);
+		remember(key, content, System.currentTimeMillis());
+	}
+
+	// the created time is kept, so that a result expires at the same time in memory and on disk
+	private synchronized void remember(String key, byte[] content, long created) {
+		if (content.length > maxMemoryBytes) return;
+		MemoryEntry previous = memory.put(key, new MemoryEntry(content, created));
+		if (previous != null) memoryBytes -= previous.content.length;
+		memoryBytes += content.length;
+		Iterator<MemoryEntry> entries = memory.values().iterator();
+		while (memoryBytes > maxMemoryBytes && entries.hasNext()) {
+			memoryBytes -= entries.next().content.length;
+			entries.remove();
+		}
+	}
+
+	/**
+	 * Removes all results from the cache, in memory and on disk.
+	 */
+	public synchronized void clear() {
+		memory.clear();
+		memoryBytes = 0;
+		disk.clear();
+	}
+
+	/**
+	 * Returns statistics about the use of the cache, with the keys "size", "bytes",
+	 * "hits", "misses", and "evictions" of the cache on disk, and "memorySize",
+	 * "memoryBytes", and "memoryHits" of the results kept in memory. The "hits"
+	 * include the "memoryHits".
+	 *
+	 * @return a {@link Map} with the cache statistics
+	 */
+	public synchronized Map<String,Long> getStatistics() {
+		Map<String,Long> statistics = disk.getStatistics();
+		statistics.put("hits", statistics.get("hits") + memoryHits);
+		statistics.put("memorySize", (long)memory.size());
+		statistics.put("memoryBytes", memoryBytes);
+		statistics.put("memoryHits", memoryHits);
+		return statistics;
+	}
+
+	private static String key(String endpoint, String query, Map<String,String> extraHeaders) {
+		StringBuilder key = new StringBuilder(endpoint).append('\n');
+		if (extraHeaders != null) {
+			for (Map.Entry<String,String> header : new TreeMap<String,String>(extraHeaders).entrySet()) {
+				key.append(header.getKey()).append(": ").append(header.getValue()).append('\n');
+			}
+		}
+		return key.append('\n').append(normalize(query)).toString();
+	}
+
+	/**
+	 * Normalizes the whitespace in the query, so that queries that only differ in
+	 * indentation or line breaks share their results. Whitespace inside string
+	 * literals is kept, and the line break that ends a comment is kept.
+	 *
+	 * @param query the SPARQL query
+	 * @return      the normalized query
+	 */
+	static String normalize(String query) {
+		StringBuilder normalized = new StringBuilder(query.length());
+		char quote = 0;
+		boolean comment = false;
+		boolean inWhitespace = false;
+		boolean newline = false;
+		for (int i=0; i<query.length(); i++) {
+			char c = query.charAt(i);
+			if (comment) {
+				if (c != '\n' && c != '\r') {
+					normalized.append(c);
+					continue;
+				}
+				comment = false;
+				newline = true;
+			}
+			if (quote == 0 && Character.isWhitespace(c)) {
+				inWhitespace = true;
+				continue;
+			}
+			if (inWhitespace && normalized.length() > 0) normalized.append(newline ? '\n' : ' ');
+			inWhitespace = false;
+			newline = false;
+			if (quote == 0 && c == '<') {
+				// an IRI may contain a '#', which does not start a comment there
+				int end = i + 1;
+				while (end < query.length() && "<>\"{}|^`\\".indexOf(query.charAt(end)) < 0
+						&& !Character.isWhitespace(query.charAt(end))) end++;
+				if (end < query.length() && query.charAt(end) == '>') {
+					normalized.append(query, i, end + 1);
+					i = end;
+					continue;
+				}
+			}
+			normalized.append(c);
+			if (quote == 0 && c == '#') {
+				comment = true;
+			} else if (quote == 0 && (c == '"' || c == '\'')) {
+				quote = c;
+			} else if (quote != 0 && c == '\\' && i+1 < query.length()) {
+				normalized.append(query.charAt(++i));
+			} else if (c == quote) {
+				quote = 0;
+			}
+		}
+		return normalized.toString();
+	}
+
+}
@@ -0,0 +1,172 @@
+/* Copyright (c) 2026  Egon Willighagen <egon.willighagen@gmail.com>
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contact: http://www.bioclipse.net/
+ */
+package net.bioclipse.managers.http;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterator over the rows of a SPARQL query result, parsed while the results are read.
+ * The SPARQL Query Results XML, JSON, TSV, and CSV formats are supported. Each row
+ * maps the bound variables to the URI, literal value, or blank node label. The
+ * underlying stream is closed when all rows are read or when the iterator is closed.
+ * Rows of results that are not read from a stream, like those of a query on a local
+ * store, are iterated with a custom {@link RowReader}.
+ */
+public class SPARQLResultsIterator implements Iterator<Map<String,String>>, AutoCloseable {
+
+	/** Media type of the SPARQL Query Results XML format. */
+	public final static String XML = "application/sparql-results+xml";
+	/** Media type of the SPARQL Query Results JSON format. */
+	public final static String JSON = "application/sparql-results+json";
+	/** Media type of the SPARQL Query Results TSV format. */
+	public final static String TSV = "text/tab-separated-values";
+	/** Media type of the SPARQL Query Results CSV format. */
+	public final static String CSV = "text/csv";
+
+	/**
+	 * Accept header asking for the supported formats, from the fastest to transfer
+	 * and parse to the slowest.
+	 */
+	public final static String ACCEPT = TSV + ", " + JSON + ";q=0.9, " + CSV + ";q=0.8, " + XML + ";q=0.7";
+
+	/**
+	 * Reads the variables and rows of SPARQL results, e.g. of one results format.
+	 */
+	public interface RowReader {
+		/** Returns the variables, read when the reader was created. */
+		List<String> variables();
+		/** Returns the next row, or null when there are no more rows. */
+		Map<String,String> readRow() throws IOException;
+		/** Stops reading. */
+		void close();
+	}
+
+	private final RowReader reader;
+	private final Closeable source;
+	private Map<String,String> next = null;
+	private boolean closed = false;
+
+	/**
+	 * Creates an iterator over the SPARQL XML results in the given stream.
+	 *
+	 * @param stream the SPARQL XML results
+	 * @param source the resource to close with the iterator, e.g. an HTTP response, or null
+	 * @throws IOException when the stream does not start with SPARQL XML results
+	 */
+	public SPARQLResultsIterator(InputStream stream, Closeable source) throws IOException {
+		this(stream, XML, source);
+	}
+
+	/**
+	 * Creates an iterator over the SPARQL results in the given stream, in the format
+	 * of the given media type.
+	 *
+	 * @param stream      the SPARQL results
+	 * @param contentType the media type of the results, e.g. the Content-Type of the HTTP response
+	 * @param source      the resource to close with the iterator, e.g. an HTTP response, or null
+	 * @throws IOException when the format is not supported or the results could not be parsed
+	 */
+	public SPARQLResultsIterator(InputStream stream, String contentType, Closeable source) throws IOException {
+		this.source = source != null ? source : stream;
+		try {
+			String format = mediaType(contentType);
+			if (format.equals(JSON) || format.equals("application/json")) {
+				this.reader = new JSONRowReader(stream);
+			} else if (format.equals(TSV)) {
+				this.reader = new TSVRowReader(stream);
+			} else if (format.equals(CSV)) {
+				this.reader = new CSVRowReader(stream);
+			} else if (format.equals(XML) || format.equals("application/xml") ||
+					format.equals("text/xml") || format.isEmpty()) {
+				this.reader = new XMLRowReader(stream);
+			} else {
+				throw new IOException("Unsupported SPARQL results format: " + contentType);
+			}
+		} catch (IOException exception) {
+			this.source.close();
+			throw exception;
+		}
+	}
+
+	/**
+	 * Creates an iterator over the rows of the given reader, e.g. for results that
+	 * are not read from a stream.
+	 *
+	 * @param reader the reader of the rows
+	 * @param source the resource to close with the iterator, e.g. a query execution, or null
+	 */
+	public SPARQLResultsIterator(RowReader reader, Closeable source) {
+		this.reader = reader;
+		this.source = source != null ? source : () -> {};
+	}
+
+	private static String mediaType(String contentType) {
+		if (contentType == null) return "";
+		int parameters = contentType.indexOf(';');
+		String type = parameters < 0 ? contentType : contentType.substring(0, parameters);
+		return type.trim().toLowerCase(Locale.ROOT);
+	}
+
+	/**
+	 * Returns the variables of the query, in the order of the results header.
+	 *
+	 * @return a {@link List} of variable names
+	 */
+	public List<String> getVariables() {
+		return Collections.unmodifiableList(reader.variables());
+	}
+
+	@Override
+	public boolean hasNext() {
+		if (next == null && !closed) {
+			try {
+				next = reader.readRow();
+			} catch (IOException exception) {
+				close();
+				throw new UncheckedIOException(exception);
+			}
+			if (next == null) close();
+		}
+		return next != null;
+	}
+
+	@Override
+	public Map<String,String> next() {
+		if (!hasNext()) throw new NoSuchElementException();
+		Map<String,String> row = next;
+		next = null;
+		return row;
+	}
+
+	/**
+	 * Stops reading the results and closes the underlying stream.
+	 */
+	@Override
+	public void close() {
+		if (closed) return;
+		closed = true;
+		reader.close();
+		try {
+			source.close();
+		} catch (IOException exception) {
+			// nothing left to read
+		}
+	}
+
+}
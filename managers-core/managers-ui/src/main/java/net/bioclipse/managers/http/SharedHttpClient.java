@@ -0,0 +1,184 @@
+/* Copyright (c) 2026  Egon Willighagen <egon.willighagen@gmail.com>
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contact: http://www.bioclipse.net/
+ */
+package net.bioclipse.managers.http;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.HttpException;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.pool.PoolStats;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+
+/**
+ * HTTP client shared by all managers. Connections are pooled per host and kept
+ * alive between requests, so that repeated requests to the same server do not
+ * need a new connection and TLS handshake each time. Compressed responses are
+ * transparently decompressed. Every request is recorded in the {@link HttpMetrics}
+ * and tells {@link Connectivity} whether the network could be reached.
+ *
+ * <p>The client is created when first used. After {@link #close()} or
+ * {@link #configure(int, int, int, int)} a new client is created for the next
+ * request. The replaced client is closed only when its last connection is
+ * returned, so requests that are running, or that already got the client from
+ * {@link #get()}, are not broken off.
+ */
+public class SharedHttpClient {
+
+	/** The User-Agent sent with every request, unless a request sets its own. */
+	public final static String USER_AGENT = "Bacting (https://joss.theoj.org/papers/10.21105/joss.02558)";
+
+	private static int maxConnections = 50;
+	private static int maxConnectionsPerHost = 10;
+	private static int connectTimeout = 5000;
+	private static int responseTimeout = 300000;
+	private final static long IDLE_TIME_OUT = 60000;
+	private final static long RETIRE_CHECK_INTERVAL = 1000;
+
+	private static PoolingHttpClientConnectionManager connectionManager;
+	private static CloseableHttpClient client;
+
+	private SharedHttpClient() {}
+
+	/**
+	 * Returns the shared HTTP client. The client must not be closed by the caller;
+	 * use {@link #close()} instead.
+	 *
+	 * @return the shared {@link CloseableHttpClient}
+	 */
+	public static synchronized CloseableHttpClient get() {
+		if (client == null) {
+			connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+				.setMaxConnTotal(maxConnections)
+				.setMaxConnPerRoute(maxConnectionsPerHost)
+				.setDefaultConnectionConfig(ConnectionConfig.custom()
+					.setConnectTimeout(Timeout.ofMilliseconds(connectTimeout))
+					.setSocketTimeout(Timeout.ofMilliseconds(responseTimeout))
+					.setValidateAfterInactivity(TimeValue.ofSeconds(10))
+					.build())
+				.build();
+			client = HttpClients.custom()
+				.setConnectionManager(connectionManager)
+				.setUserAgent(USER_AGENT)
+				.setDefaultRequestConfig(RequestConfig.custom()
+					.setResponseTimeout(Timeout.ofMilliseconds(responseTimeout))
+					.build())
+				.addExecInterceptorFirst("metrics", (request, scope, chain) -> {
+					String host = scope.route.getTargetHost().getHostName();
+					long start = System.nanoTime();
+					try {
+						ClassicHttpResponse response = chain.proceed(request, scope);
+						HttpMetrics.recordResponse(host, response.getCode(), System.nanoTime() - start);
+						Connectivity.recordSuccess();
+						if (response.getEntity() != null)
+							response.setEntity(HttpMetrics.countBytes(host, response.getEntity()));
+						return response;
+					} catch (IOException exception) {
+						HttpMetrics.recordError(host, System.nanoTime() - start);
+						Connectivity.recordFailure(exception);
+						throw exception;
+					} catch (HttpException exception) {
+						HttpMetrics.recordError(host, System.nanoTime() - start);
+						throw exception;
+					}
+				})
+				.evictExpiredConnections()
+				.evictIdleConnections(TimeValue.ofMilliseconds(IDLE_TIME_OUT))
+				.build();
+		}
+		return client;
+	}
+
+	/**
+	 * Configures the shared HTTP client. Requests that are running keep using the
+	 * current client, which is closed when they are done; new requests use a client
+	 * with the new settings.
+	 *
+	 * @param maxConnections        the maximal number of open connections
+	 * @param maxConnectionsPerHost the maximal number of open connections to a single host
+	 * @param connectTimeout        the time in milliseconds to wait for a connection
+	 * @param responseTimeout       the time in milliseconds to wait for data from the server
+	 */
+	public static synchronized void configure(int maxConnections, int maxConnectionsPerHost,
+			int connectTimeout, int responseTimeout) {
+		if (maxConnections < 1 || maxConnectionsPerHost < 1)
+			throw new IllegalArgumentException("At least one connection must be allowed.");
+		SharedHttpClient.maxConnections = maxConnections;
+		SharedHttpClient.maxConnectionsPerHost = maxConnectionsPerHost;
+		SharedHttpClient.connectTimeout = connectTimeout;
+		SharedHttpClient.responseTimeout = responseTimeout;
+		retire();
+	}
+
+	/**
+	 * Closes the idle pooled connections at once, and the connections in use when
+	 * their requests are done. A new client is created when another request is made.
+	 */
+	public static synchronized void close() {
+		retire();
+	}
+
+	private static void retire() {
+		if (client == null) return;
+		CloseableHttpClient oldClient = client;
+		PoolingHttpClientConnectionManager oldManager = connectionManager;
+		client = null;
+		connectionManager = null;
+		oldManager.closeIdle(TimeValue.ZERO_MILLISECONDS);
+		// other threads may still use the old client, so wait until they are done
+		Thread.ofVirtual().name("bioclipse-http-retire").start(() -> {
+			try {
+				int idleChecks = 0;
+				while (idleChecks < 2) {
+					Thread.sleep(RETIRE_CHECK_INTERVAL);
+					PoolStats stats = oldManager.getTotalStats();
+					idleChecks = stats.getLeased() == 0 && stats.getPending() == 0 ? idleChecks + 1 : 0;
+				}
+			} catch (InterruptedException exception) {
+				Thread.currentThread().interrupt();
+			}
+			oldClient.close(CloseMode.GRACEFUL);
+		});
+	}
+
+	/**
+	 * Returns statistics of the connection pool: the number of connections in use
+	 * ("leased"), idle connections ("available"), requests waiting for a connection
+	 * ("pending"), and the maximal number of connections ("max").
+	 *
+	 * @return a {@link Map} with the pool statistics
+	 */
+	public static synchronized Map<String,Long> getStatistics() {
+		Map<String,Long> statistics = new HashMap<String,Long>();
+		if (connectionManager == null) {
+			statistics.put("leased", 0L);
+			statistics.put("available", 0L);
+			statistics.put("pending", 0L);
+			statistics.put("max", (long)maxConnections);
+			return statistics;
+		}
+		PoolStats stats = connectionManager.getTotalStats();
+		statistics.put("leased", (long)stats.getLeased());
+		statistics.put("available", (long)stats.getAvailable());
+		statistics.put("pending", (long)stats.getPending());
+		statistics.put("max", (long)stats.getMax());
+		return statistics;
+	}
+
+}
@@ -0,0 +1,106 @@
+/* Copyright (c) 2026  Egon Willighagen <egon.willighagen@gmail.com>
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contact: http://www.bioclipse.net/
+ */
+package net.bioclipse.managers.http;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads rows from the SPARQL Query Results TSV format. The RDF terms are turned
+ * into the same values as the XML format gives: URIs without angle brackets,
+ * the lexical form of literals, and blank node labels.
+ */
+class TSVRowReader implements SPARQLResultsIterator.RowReader {
+
+	private final BufferedReader reader;
+	private final List<String> variables = new ArrayList<String>();
+
+	TSVRowReader(InputStream stream) throws IOException {
+		this.reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8));
+		String header = reader.readLine();
+		if (header != null && !header.isEmpty()) {
+			for (String variable : header.split("\t", -1)) {
+				variables.add(variable.startsWith("?") || variable.startsWith("$") ? variable.substring(1) : variable);
+			}
+		}
+	}
+
+	@Override
+	public List<String> variables() {
+		return variables;
+	}
+
+	@Override
+	public Map<String,String> readRow() throws IOException {
+		String line = reader.readLine();
+		if (line == null) return null;
+		String[] terms = line.split("\t", -1);
+		Map<String,String> row = new LinkedHashMap<String,String>();
+		for (int i=0; i<terms.length && i<variables.size(); i++) {
+			if (!terms[i].isEmpty()) row.put(variables.get(i), value(terms[i]));
+		}
+		return row;
+	}
+
+	static String value(String term) throws IOException {
+		if (term.startsWith("<") && term.endsWith(">")) return term.substring(1, term.length()-1);
+		if (term.startsWith("_:")) return term.substring(2);
+		if (!term.startsWith("\"") && !term.startsWith("'")) return term; // numbers and booleans
+		char quote = term.charAt(0);
+		StringBuilder value = new StringBuilder();
+		for (int i=1; i<term.length(); i++) {
+			char c = term.charAt(i);
+			if (c == quote) return value.toString(); // followed by an optional language or datatype
+			if (c != '\\') {
+				value.append(c);
+				continue;
+			}
+			if (++i >= term.length()) break;
+			char escaped = term.charAt(i);
+			switch (escaped) {
+				case 't': value.append('\t'); break;
+				case 'n': value.append('\n'); break;
+				case 'r': value.append('\r'); break;
+				case 'b': value.append('\b'); break;
+				case 'f': value.append('\f'); break;
+				case 'u':
+				case 'U':
+					int length = escaped == 'u' ? 4 : 8;
+					if (i + length >= term.length()) throw new IOException("Invalid escape in TSV term: " + term);
+					try {
+						value.appendCodePoint(Integer.parseInt(term.substring(i+1, i+1+length), 16));
+					} catch (IllegalArgumentException exception) {
+						throw new IOException("Invalid escape in TSV term: " + term, exception);
+					}
+					i += length;
+					break;
+				default: value.append(escaped);
+			}
+		}
+		throw new IOException("Unterminated literal in TSV term: " + term);
+	}
+
+	@Override
+	public void close() {
+		try {
+			reader.close();
+		} catch (IOException exception) {
+			// nothing left to read
+		}
+	}
+
+}
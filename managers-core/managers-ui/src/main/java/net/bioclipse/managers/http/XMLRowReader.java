@@ -0,0 +1,104 @@
+/* Copyright (c) 2026  Egon Willighagen <egon.willighagen@gmail.com>
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contact: http://www.bioclipse.net/
+ */
+package net.bioclipse.managers.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Reads rows from the SPARQL Query Results XML format with StAX.
+ */
+class XMLRowReader implements SPARQLResultsIterator.RowReader {
+
+	private final static XMLInputFactory factory = XMLInputFactory.newInstance();
+	static {
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+	}
+
+	private final XMLStreamReader reader;
+	private final List<String> variables = new ArrayList<String>();
+
+	XMLRowReader(InputStream stream) throws IOException {
+		try {
+			this.reader = factory.createXMLStreamReader(stream);
+			// read the variable names from the head
+			while (reader.hasNext()) {
+				int event = reader.next();
+				if (event == XMLStreamConstants.START_ELEMENT) {
+					String name = reader.getLocalName();
+					if ("variable".equals(name)) {
+						variables.add(reader.getAttributeValue(null, "name"));
+					} else if ("results".equals(name) || "boolean".equals(name)) {
+						break;
+					}
+				}
+			}
+		} catch (XMLStreamException exception) {
+			throw new IOException("Error while parsing the SPARQL results: " + exception.getMessage(), exception);
+		}
+	}
+
+	@Override
+	public List<String> variables() {
+		return variables;
+	}
+
+	@Override
+	public Map<String,String> readRow() throws IOException {
+		try {
+			Map<String,String> row = null;
+			String binding = null;
+			while (reader.hasNext()) {
+				int event = reader.next();
+				if (event == XMLStreamConstants.START_ELEMENT) {
+					String name = reader.getLocalName();
+					if ("result".equals(name)) {
+						row = new LinkedHashMap<String,String>();
+					} else if ("binding".equals(name)) {
+						binding = reader.getAttributeValue(null, "name");
+					} else if (row != null && binding != null &&
+							("uri".equals(name) || "literal".equals(name) || "bnode".equals(name))) {
+						row.put(binding, reader.getElementText());
+					}
+				} else if (event == XMLStreamConstants.END_ELEMENT) {
+					String name = reader.getLocalName();
+					if ("binding".equals(name)) {
+						binding = null;
+					} else if ("result".equals(name)) {
+						return row;
+					}
+				}
+			}
+			return null;
+		} catch (XMLStreamException exception) {
+			throw new IOException("Error while parsing the SPARQL results: " + exception.getMessage(), exception);
+		}
+	}
+
+	@Override
+	public void close() {
+		try {
+			reader.close();
+		} catch (XMLStreamException exception) {
+			// nothing left to read
+		}
+	}
+
+}
@@ -9,6 +9,9 @@
  */
 package net.bioclipse.managers;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNotSame;
@@ -17,15 +20,25 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
 import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 
+import com.sun.net.httpserver.HttpServer;
+
 import net.bioclipse.core.business.BioclipseException;
 
 public class BioclipseManagerTest {
@@ -158,6 +171,139 @@ public class BioclipseManagerTest {
 		assertTrue(exception.getMessage().contains("Expected HTTP 200, but got"));
 	}
 
+	@Test
+	public void testSparqlRemoteAsStream() throws BioclipseException {
+		try (Stream<Map<String,String>> rows = bioclipse.sparqlRemoteAsStream(
+			"https://sparql.wikipathways.org/sparql",
+			"SELECT ?s ?p ?o WHERE { ?s ?p ?o } LIMIT 5"
+		)) {
+			List<Map<String,String>> results = rows.collect(Collectors.toList());
+			assertEquals(5, results.size());
+			assertTrue(results.get(0).containsKey("s"));
+		}
+	}
+
+	@Test
+	public void testSparqlRemote_RowHandler() throws BioclipseException {
+		List<Map<String,String>> results = new ArrayList<>();
+		long count = bioclipse.sparqlRemote(
+			"https://sparql.wikipathways.org/sparql",
+			"SELECT ?s ?p ?o WHERE { ?s ?p ?o } LIMIT 10",
+			null,
+			row -> {
+				results.add(row);
+				return results.size() < 3;
+			}
+		);
+		assertEquals(3, count);
+		assertEquals(3, results.size());
+	}
+
+	@Test
+	public void testSparqlRemoteAsStream_403() throws BioclipseException {
+		Exception exception = assertThrows(
+			BioclipseException.class, () ->
+			{
+				bioclipse.sparqlRemoteAsStream(
+					"https://httpbingo.org/status/403",
+					"SELECT * WHERE { ?s ?p ?o } LIMIT 1"
+				);
+			}
+		);
+		assertTrue(exception.getMessage().contains("Expected HTTP 200, but got"));
+	}
+
+	@Test
+	public void testSparqlRemoteAsync() throws Exception {
+		CompletableFuture<byte[]> results = bioclipse.sparqlRemoteAsync(
+			"https://sparql.wikipathways.org/sparql",
+			"SELECT * WHERE { ?s ?p ?o } LIMIT 1"
+		);
+		assertNotSame(0, results.get().length);
+	}
+
+	@Test
+	public void testSparqlRemoteAll() throws BioclipseException {
+		List<String> queries = new ArrayList<>();
+		for (int i=1; i<=4; i++) queries.add("SELECT * WHERE { ?s ?p ?o } LIMIT " + i);
+		List<byte[]> results = bioclipse.sparqlRemoteAll(
+			"https://sparql.wikipathways.org/sparql", queries, 2
+		);
+		assertEquals(4, results.size());
+		for (byte[] result : results) assertNotSame(0, result.length);
+	}
+
+	@Test
+	public void testSparqlRemoteAll_403() {
+		List<String> queries = new ArrayList<>();
+		queries.add("SELECT * WHERE { ?s ?p ?o } LIMIT 1");
+		Exception exception = assertThrows(
+			BioclipseException.class, () ->
+			{
+				bioclipse.sparqlRemoteAll("https://httpbingo.org/status/403", queries, 2);
+			}
+		);
+		assertTrue(exception.getMessage().contains("Expected HTTP 200, but got"));
+	}
+
+	@Test
+	public void testDownloadAsync() throws Exception {
+		String results = bioclipse.downloadAsync("https://wikipathways.org").get();
+		assertTrue(results.contains("WikiPathways"));
+	}
+
+	@Test
+	public void testSparqlRemote_Cache() throws BioclipseException {
+		BioclipseManager cachingBioclipse = new BioclipseManager(tmpPath);
+		cachingBioclipse.enableSPARQLCache("/sparql-cache", 10000000, 1);
+		byte[] results = cachingBioclipse.sparqlRemote(
+			"https://sparql.wikipathways.org/sparql",
+			"SELECT * WHERE { ?s ?p ?o } LIMIT 1"
+		);
+		byte[] cached = cachingBioclipse.sparqlRemote(
+			"https://sparql.wikipathways.org/sparql",
+			"SELECT *  WHERE {  ?s ?p ?o }  LIMIT 1"
+		);
+		assertArrayEquals(results, cached);
+		assertEquals(1, cachingBioclipse.getSPARQLCacheStatistics().get("hits"));
+	}
+
+	@Test
+	public void testSparqlRemote_RetriesDoNotOpenBreaker() throws Exception {
+		AtomicInteger requests = new AtomicInteger();
+		HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		server.createContext("/sparql", exchange -> {
+			requests.incrementAndGet();
+			exchange.getRequestBody().readAllBytes();
+			exchange.sendResponseHeaders(503, -1);
+			exchange.close();
+		});
+		server.start();
+		try {
+			String endpoint = "http://localhost:" + server.getAddress().getPort() + "/sparql";
+			BioclipseManager manager = new BioclipseManager(tmpPath);
+			manager.setSPARQLRetries(5, 1, 10);
+			BioclipseException exception = assertThrows(BioclipseException.class,
+				() -> manager.sparqlRemote(endpoint, "SELECT ?s WHERE { ?s ?p ?o }"));
+			assertTrue(exception.getMessage().contains("503"));
+			assertEquals(6, requests.get()); // the last retry is sent too
+			assertFalse(manager.isSPARQLEndpointDown(endpoint));
+		} finally {
+			server.stop(0);
+		}
+	}
+
+	@Test
+	public void testSparqlRemoteInFormat() throws BioclipseException {
+		byte[] results = bioclipse.sparqlRemoteInFormat(
+			"https://sparql.wikipathways.org/sparql",
+			"SELECT * WHERE { ?s ?p ?o } LIMIT 1",
+			"application/sparql-results+json",
+			null
+		);
+		assertTrue(new String(results).contains("\"bindings\""));
+	}
+
 	@Test
 	public void testDownload() throws BioclipseException {
 		String results = bioclipse.download(
@@ -220,6 +366,40 @@ public class BioclipseManagerTest {
 		assertTrue(results.contains("rdfs:label"));
 	}
 
+	@Test
+	public void testDownloadLines() throws BioclipseException {
+		try (Stream<String> lines = bioclipse.downloadLines("https://egonw.github.io/")) {
+			assertTrue(lines.anyMatch(line -> line.contains("<html")));
+		}
+	}
+
+	@Test
+	public void testDownloadAsStream() throws BioclipseException, IOException {
+		try (InputStream stream = bioclipse.downloadAsStream("https://egonw.github.io/")) {
+			assertTrue(stream.read() != -1);
+		}
+	}
+
+	@Test
+	public void testDownloadLines_403() throws BioclipseException {
+		Exception exception = assertThrows(
+			BioclipseException.class, () ->
+			{
+				bioclipse.downloadLines("https://httpbingo.org/status/403");
+			}
+		);
+		assertTrue(exception.getMessage().contains("Error while downloading from URL"));
+	}
+
+	@Test
+	public void testHttpMetrics() throws BioclipseException {
+		bioclipse.download("https://egonw.github.io/");
+		Map<String,Map<String,Long>> metrics = bioclipse.getHttpMetrics();
+		assertTrue(metrics.containsKey("egonw.github.io"));
+		assertTrue(metrics.get("egonw.github.io").get("requests") > 0);
+		assertTrue(metrics.get("egonw.github.io").get("bytes") > 0);
+	}
+
 	@Test
 	public void testDownloadAsFile() throws BioclipseException {
 		String results = bioclipse.downloadAsFile(
@@ -241,6 +421,16 @@ public class BioclipseManagerTest {
 		// should also test the file content
 	}
 
+	@Test
+	public void testDownloadLargeFile() throws BioclipseException, IOException {
+		String results = bioclipse.downloadLargeFile(
+			"https://egonw.github.io/journal-guidances-template/code/JEG000002.ttl",
+			"/Download/JEG000002-large.ttl"
+		);
+		assertEquals("/Download/JEG000002-large.ttl", results);
+		assertTrue(Files.size(Paths.get(tmpPath + results)) > 0);
+	}
+
 	@Test
 	public void testDownloadAsFile_BadURL() throws BioclipseException {
 		Exception exception = assertThrows(
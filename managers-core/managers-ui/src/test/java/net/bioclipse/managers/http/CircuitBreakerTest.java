@@ -0,0 +1,73 @@
+/* Copyright (c) 2026  Egon Willighagen <egon.willighagen@gmail.com>
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contact: http://www.bioclipse.net/
+ */
+package net.bioclipse.managers.http;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+
+import org.apache.hc.core5.http.message.BasicHeader;
+import org.junit.jupiter.api.Test;
+
+public class CircuitBreakerTest {
+
+	@Test
+	public void testShared() {
+		assertSame(
+			CircuitBreaker.forEndpoint("https://example.org/shared"),
+			CircuitBreaker.forEndpoint("https://example.org/shared")
+		);
+	}
+
+	@Test
+	public void testOpens() throws Exception {
+		CircuitBreaker breaker = CircuitBreaker.forEndpoint("https://example.org/down");
+		for (int i=0; i<5; i++) {
+			breaker.checkAvailable();
+			breaker.recordFailure();
+		}
+		assertTrue(breaker.isOpen());
+		assertThrows(IOException.class, () -> breaker.checkAvailable());
+	}
+
+	@Test
+	public void testSuccessResets() throws Exception {
+		CircuitBreaker breaker = CircuitBreaker.forEndpoint("https://example.org/flaky");
+		for (int i=0; i<4; i++) breaker.recordFailure();
+		breaker.recordSuccess();
+		breaker.recordFailure();
+		assertFalse(breaker.isOpen());
+		breaker.checkAvailable();
+	}
+
+	@Test
+	public void testNoTrialWhenClosed() throws Exception {
+		CircuitBreaker breaker = CircuitBreaker.forEndpoint("https://example.org/closed");
+		for (int i=0; i<4; i++) breaker.recordFailure();
+		assertFalse(breaker.checkAvailable());
+		breaker.releaseTrial();
+		assertFalse(breaker.checkAvailable());
+	}
+
+	@Test
+	public void testRetryAfter() {
+		RetryPolicy policy = new RetryPolicy(3, 1000, 60000);
+		assertTrue(policy.delay(0, new BasicHeader("Retry-After", "7")) == 7000);
+		assertTrue(policy.delay(0, new BasicHeader("Retry-After", "3600")) == 60000);
+		long backoff = policy.delay(2, null);
+		assertTrue(backoff >= 2000 && backoff <= 4000);
+		assertTrue(RetryPolicy.isRetryable(429));
+		assertFalse(RetryPolicy.isRetryable(403));
+	}
+
+}
@@ -0,0 +1,65 @@
+/* Copyright (c) 2026  Egon Willighagen <egon.willighagen@gmail.com>
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contact: http://www.bioclipse.net/
+ */
+package net.bioclipse.managers.http;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class ConnectivityTest {
+
+	@BeforeEach
+	public void unreachableProbes() {
+		// nothing listens on port 1, so probing fails fast
+		Connectivity.configure(Collections.singletonList("http://localhost:1/"), 1000, 60000);
+	}
+
+	@AfterEach
+	public void defaultProbes() {
+		Connectivity.configure(Arrays.asList("http://google.com/", "http://slashdot.org/"), 3000, 60000);
+	}
+
+	@Test
+	public void testProbes() {
+		assertFalse(Connectivity.isOnline());
+	}
+
+	@Test
+	public void testLearnsFromRequests() {
+		Connectivity.recordSuccess();
+		assertTrue(Connectivity.isOnline());
+		// a slow server says nothing about the network
+		Connectivity.recordFailure(new SocketTimeoutException());
+		assertTrue(Connectivity.isOnline());
+		Connectivity.recordFailure(new UnknownHostException("example.org"));
+		assertFalse(Connectivity.isOnline());
+		Connectivity.recordSuccess();
+		Connectivity.recordFailure(new ConnectException());
+		assertFalse(Connectivity.isOnline());
+	}
+
+	@Test
+	public void testNoProbes() {
+		assertThrows(IllegalArgumentException.class, () ->
+			Connectivity.configure(Collections.emptyList(), 1000, 60000)
+		);
+	}
+
+}
@@ -0,0 +1,61 @@
+/* Copyright (c) 2026  Egon Willighagen <egon.willighagen@gmail.com>
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contact: http://www.bioclipse.net/
+ */
+package net.bioclipse.managers.http;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+public class HttpMetricsTest {
+
+	@Test
+	public void testStatistics() {
+		HttpMetrics.recordResponse("metrics.example.org", 200, TimeUnit.MILLISECONDS.toNanos(120));
+		HttpMetrics.recordResponse("metrics.example.org", 503, TimeUnit.MILLISECONDS.toNanos(5));
+		HttpMetrics.recordRetry("metrics.example.org");
+		HttpMetrics.recordCacheHit("metrics.example.org");
+		HttpMetrics.recordError("metrics.example.org", TimeUnit.SECONDS.toNanos(90));
+		Map<String,Long> statistics = HttpMetrics.getStatistics().get("metrics.example.org");
+		assertEquals(2, statistics.get("requests"));
+		assertEquals(1, statistics.get("errors"));
+		assertEquals(1, statistics.get("retries"));
+		assertEquals(1, statistics.get("cacheHits"));
+		assertEquals(1, statistics.get("status.200"));
+		assertEquals(1, statistics.get("status.503"));
+		assertEquals(1, statistics.get("latency.le10"));
+		assertEquals(1, statistics.get("latency.le250"));
+		assertEquals(1, statistics.get("latency.gt60000"));
+		assertEquals(90000, statistics.get("maxMillis"));
+	}
+
+	@Test
+	public void testHost() {
+		assertEquals("query.wikidata.org", HttpMetrics.host("https://query.wikidata.org/sparql"));
+		assertEquals("unknown", HttpMetrics.host("not a url"));
+	}
+
+	@Test
+	public void testDump() throws Exception {
+		HttpMetrics.recordResponse("dump.example.org", 200, 1000);
+		Path file = Files.createTempDirectory("bioclipsetestmetrics").resolve("metrics.json");
+		HttpMetrics.dump(file);
+		String json = new String(Files.readAllBytes(file));
+		assertTrue(json.startsWith("{\"time\":"));
+		assertTrue(json.contains("\"dump.example.org\":{"));
+		assertTrue(json.contains("\"status.200\":1"));
+	}
+
+}
@@ -0,0 +1,182 @@
+/* Copyright (c) 2026  Egon Willighagen <egon.willighagen@gmail.com>
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contact: http://www.bioclipse.net/
+ */
+package net.bioclipse.managers.http;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+public class RangedDownloadTest {
+
+	static HttpServer server;
+	static String baseURL;
+	static Path tmpPath;
+	static byte[] content = new byte[3 * 1024 * 1024 + 12345];
+	static AtomicLong bytesServed = new AtomicLong();
+	static AtomicLong rangeRequests = new AtomicLong();
+	static volatile long dropAfter = -1;
+
+	@BeforeAll
+	static void startServer() throws IOException {
+		new Random(42).nextBytes(content);
+		tmpPath = Files.createTempDirectory("bioclipsetestdownload");
+		server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		server.createContext("/ranges", exchange -> serve(exchange, true));
+		server.createContext("/plain", exchange -> serve(exchange, false));
+		server.setExecutor(Executors.newCachedThreadPool());
+		server.start();
+		baseURL = "http://localhost:" + server.getAddress().getPort();
+	}
+
+	@AfterAll
+	static void stopServer() {
+		server.stop(0);
+	}
+
+	private static void serve(HttpExchange exchange, boolean ranges) throws IOException {
+		if (ranges) {
+			exchange.getResponseHeaders().set("Accept-Ranges", "bytes");
+			exchange.getResponseHeaders().set("ETag", "\"v1\"");
+		}
+		if ("HEAD".equals(exchange.getRequestMethod())) {
+			exchange.getResponseHeaders().set("Content-Length", Integer.toString(content.length));
+			exchange.sendResponseHeaders(200, -1);
+			exchange.close();
+			return;
+		}
+		int start = 0;
+		int end = content.length - 1;
+		String range = exchange.getRequestHeaders().getFirst("Range");
+		if (ranges && range != null) {
+			String[] bytes = range.substring("bytes=".length()).split("-");
+			start = Integer.parseInt(bytes[0]);
+			end = Integer.parseInt(bytes[1]);
+			rangeRequests.incrementAndGet();
+			exchange.getResponseHeaders().set("Content-Range", "bytes " + start + "-" + end + "/" + content.length);
+			exchange.sendResponseHeaders(206, end - start + 1);
+		} else {
+			exchange.sendResponseHeaders(200, content.length);
+		}
+		OutputStream stream = exchange.getResponseBody();
+		int length = end - start + 1;
+		if (dropAfter >= 0 && dropAfter < length) {
+			stream.write(content, start, (int)dropAfter);
+			stream.flush();
+			bytesServed.addAndGet(dropAfter);
+			throw new IOException("Connection dropped.");
+		}
+		stream.write(content, start, length);
+		bytesServed.addAndGet(length);
+		exchange.close();
+	}
+
+	private static String sha256(byte[] bytes) throws Exception {
+		return "SHA-256:" + HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+	}
+
+	@Test
+	public void testParallel() throws Exception {
+		Path target = tmpPath.resolve("parallel.bin");
+		rangeRequests.set(0);
+		new RangedDownload(
+			baseURL + "/ranges", null, target, 4, sha256(content), new RetryPolicy(0, 0, 0)
+		).download();
+		assertArrayEquals(content, Files.readAllBytes(target));
+		assertTrue(rangeRequests.get() == 3);
+		assertFalse(Files.exists(tmpPath.resolve("parallel.bin.part")));
+		assertFalse(Files.exists(tmpPath.resolve("parallel.bin.part.state")));
+	}
+
+	@Test
+	public void testResume() throws Exception {
+		Path target = tmpPath.resolve("resume.bin");
+		RangedDownload download = new RangedDownload(
+			baseURL + "/ranges", null, target, 4, null, new RetryPolicy(0, 0, 0)
+		);
+		dropAfter = 256 * 1024;
+		try {
+			assertThrows(IOException.class, () -> download.download());
+		} finally {
+			dropAfter = -1;
+		}
+		assertTrue(Files.exists(tmpPath.resolve("resume.bin.part.state")));
+		bytesServed.set(0);
+		new RangedDownload(
+			baseURL + "/ranges", null, target, 4, null, new RetryPolicy(0, 0, 0)
+		).download();
+		assertArrayEquals(content, Files.readAllBytes(target));
+		assertTrue(bytesServed.get() < content.length);
+	}
+
+	@Test
+	public void testRetriesDroppedConnection() throws Exception {
+		Path target = tmpPath.resolve("retry.bin");
+		dropAfter = 512 * 1024;
+		try {
+			new RangedDownload(
+				baseURL + "/ranges", null, target, 2, sha256(content), new RetryPolicy(1, 0, 0)
+			).download();
+		} finally {
+			dropAfter = -1;
+		}
+		assertArrayEquals(content, Files.readAllBytes(target));
+	}
+
+	@Test
+	public void testWithoutRanges() throws Exception {
+		Path target = tmpPath.resolve("plain.bin");
+		new RangedDownload(
+			baseURL + "/plain", null, target, 4, sha256(content), new RetryPolicy(0, 0, 0)
+		).download();
+		assertArrayEquals(content, Files.readAllBytes(target));
+	}
+
+	@Test
+	public void testChecksumMismatch() throws Exception {
+		Path target = tmpPath.resolve("mismatch.bin");
+		IOException exception = assertThrows(IOException.class, () ->
+			new RangedDownload(
+				baseURL + "/ranges", null, target, 4, sha256(new byte[0]), new RetryPolicy(0, 0, 0)
+			).download()
+		);
+		assertTrue(exception.getMessage().contains("Checksum mismatch"));
+		assertFalse(Files.exists(target));
+		assertFalse(Files.exists(tmpPath.resolve("mismatch.bin.part")));
+	}
+
+	@Test
+	public void testUnsupportedChecksum() {
+		assertThrows(IllegalArgumentException.class, () ->
+			new RangedDownload(
+				baseURL + "/ranges", null, tmpPath.resolve("x.bin"), 4, "CRC99:1234", new RetryPolicy(0, 0, 0)
+			)
+		);
+	}
+
+}
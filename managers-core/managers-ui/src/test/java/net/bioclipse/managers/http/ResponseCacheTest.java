@@ -0,0 +1,108 @@
+/* Copyright (c) 2026  Egon Willighagen <egon.willighagen@gmail.com>
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contact: http://www.bioclipse.net/
+ */
+package net.bioclipse.managers.http;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+public class ResponseCacheTest {
+
+	@Test
+	public void testPutAndGet() throws Exception {
+		String directory = Files.createTempDirectory("cachetest").toString();
+		ResponseCache cache = new ResponseCache(directory, 1000000, 60000);
+		assertNull(cache.getString("http://example.org/"));
+		cache.putString("http://example.org/", "some content");
+		assertEquals("some content", cache.getString("http://example.org/"));
+		assertEquals(1, cache.getStatistics().get("hits"));
+		assertEquals(1, cache.getStatistics().get("misses"));
+	}
+
+	@Test
+	public void testPutAndGetFile() throws Exception {
+		Path directory = Files.createTempDirectory("cachetest");
+		ResponseCache cache = new ResponseCache(directory.toString(), 1000000, 60000);
+		Path source = Files.createTempFile("cachetest", ".txt");
+		Files.write(source, "file content".getBytes(StandardCharsets.UTF_8));
+		cache.put("http://example.org/file", source);
+		Path target = Files.createTempFile("cachetest", ".txt");
+		assertTrue(cache.get("http://example.org/file", target));
+		assertEquals("file content", new String(Files.readAllBytes(target), StandardCharsets.UTF_8));
+		assertFalse(cache.get("http://example.org/other", target));
+	}
+
+	@Test
+	public void testConcurrentPutAndGet() throws Exception {
+		String directory = Files.createTempDirectory("cachetest").toString();
+		ResponseCache cache = new ResponseCache(directory, 10000000, 60000);
+		IntStream.range(0, 200).parallel().forEach(i -> {
+			try {
+				cache.putString("key" + (i % 20), "value" + (i % 20));
+				assertEquals("value" + (i % 20), cache.getString("key" + (i % 20)));
+			} catch (IOException exception) {
+				throw new UncheckedIOException(exception);
+			}
+		});
+		assertEquals(20, cache.getStatistics().get("size"));
+		assertEquals(200, cache.getStatistics().get("hits"));
+	}
+
+	@Test
+	public void testReuseDirectory() throws Exception {
+		String directory = Files.createTempDirectory("cachetest").toString();
+		new ResponseCache(directory, 1000000, 60000).putString("key", "value");
+		ResponseCache cache = new ResponseCache(directory, 1000000, 60000);
+		assertEquals("value", cache.getString("key"));
+	}
+
+	@Test
+	public void testTimeToLive() throws Exception {
+		String directory = Files.createTempDirectory("cachetest").toString();
+		ResponseCache cache = new ResponseCache(directory, 1000000, -1);
+		cache.putString("key", "value");
+		assertNull(cache.getString("key"));
+		assertEquals(0, cache.getStatistics().get("size"));
+	}
+
+	@Test
+	public void testEviction() throws Exception {
+		String directory = Files.createTempDirectory("cachetest").toString();
+		ResponseCache cache = new ResponseCache(directory, 50, 60000);
+		cache.putString("first", "value");
+		cache.putString("second", "value");
+		cache.putString("third", "value");
+		assertNull(cache.getString("first"));
+		assertNotNull(cache.getString("third"));
+		assertEquals(1, cache.getStatistics().get("size"));
+	}
+
+	@Test
+	public void testClear() throws Exception {
+		String directory = Files.createTempDirectory("cachetest").toString();
+		ResponseCache cache = new ResponseCache(directory, 1000000, 60000);
+		cache.putString("key", "value");
+		cache.clear();
+		assertNull(cache.getString("key"));
+		assertEquals(0, cache.getStatistics().get("bytes"));
+	}
+
+}
@@ -0,0 +1,86 @@
+/* Copyright (c) 2026  Egon Willighagen <egon.willighagen@gmail.com>
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contact: http://www.bioclipse.net/
+ */
+package net.bioclipse.managers.http;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+public class SPARQLResultCacheTest {
+
+	private final static String ENDPOINT = "https://example.org/sparql";
+	private final static byte[] RESULTS = "<sparql/>".getBytes(StandardCharsets.UTF_8);
+
+	@Test
+	public void testNormalizedQuery() throws Exception {
+		String directory = Files.createTempDirectory("sparqlcachetest").toString();
+		SPARQLResultCache cache = new SPARQLResultCache(directory, 1000000, 1000000, 60000);
+		cache.put(ENDPOINT, "SELECT ?s WHERE {\n  ?s ?p ?o\n}", null, RESULTS);
+		assertArrayEquals(RESULTS, cache.get(ENDPOINT, "  SELECT ?s  WHERE {\n\t?s ?p ?o }", null));
+		assertNull(cache.get("https://example.com/sparql", "SELECT ?s WHERE {\n  ?s ?p ?o\n}", null));
+		assertEquals(1, cache.getStatistics().get("memoryHits"));
+	}
+
+	@Test
+	public void testHeaders() throws Exception {
+		String directory = Files.createTempDirectory("sparqlcachetest").toString();
+		SPARQLResultCache cache = new SPARQLResultCache(directory, 1000000, 1000000, 60000);
+		Map<String,String> headers = new HashMap<>();
+		headers.put("Authorization", "Bearer 123");
+		cache.put(ENDPOINT, "ASK {}", headers, RESULTS);
+		assertNull(cache.get(ENDPOINT, "ASK {}", null));
+		assertArrayEquals(RESULTS, cache.get(ENDPOINT, "ASK {}", headers));
+	}
+
+	@Test
+	public void testFromDisk() throws Exception {
+		String directory = Files.createTempDirectory("sparqlcachetest").toString();
+		new SPARQLResultCache(directory, 1000000, 1000000, 60000).put(ENDPOINT, "ASK {}", null, RESULTS);
+		SPARQLResultCache cache = new SPARQLResultCache(directory, 1000000, 1000000, 60000);
+		assertArrayEquals(RESULTS, cache.get(ENDPOINT, "ASK {}", null));
+		assertArrayEquals(RESULTS, cache.get(ENDPOINT, "ASK {}", null));
+		Map<String,Long> statistics = cache.getStatistics();
+		assertEquals(2, statistics.get("hits"));
+		assertEquals(1, statistics.get("memoryHits"));
+	}
+
+	@Test
+	public void testFromDisk_KeepsTimeToLive() throws Exception {
+		String directory = Files.createTempDirectory("sparqlcachetest").toString();
+		new SPARQLResultCache(directory, 1000000, 1000000, 1000).put(ENDPOINT, "ASK {}", null, RESULTS);
+		Thread.sleep(600);
+		SPARQLResultCache cache = new SPARQLResultCache(directory, 1000000, 1000000, 1000);
+		assertArrayEquals(RESULTS, cache.get(ENDPOINT, "ASK {}", null));
+		Thread.sleep(600);
+		assertNull(cache.get(ENDPOINT, "ASK {}", null)); // expired, also in memory
+	}
+
+	@Test
+	public void testNormalize() {
+		assertEquals("SELECT * WHERE { ?s ?p \"a  b\" }",
+			SPARQLResultCache.normalize(" SELECT *  WHERE {  ?s ?p \"a  b\" } "));
+		assertNotEquals(
+			SPARQLResultCache.normalize("# comment\nSELECT"),
+			SPARQLResultCache.normalize("# comment SELECT"));
+		assertEquals("SELECT * WHERE { <http://example.com/#s> ?p ?o }",
+			SPARQLResultCache.normalize("SELECT *\nWHERE {\n  <http://example.com/#s> ?p ?o\n}"));
+		assertEquals("# comment\nSELECT * WHERE { ?s ?p ?o FILTER (?o < 5) }",
+			SPARQLResultCache.normalize("# comment\nSELECT * WHERE {\n ?s ?p ?o FILTER (?o\n< 5) }"));
+	}
+
+}
@@ -0,0 +1,150 @@
+/* Copyright (c) 2026  Egon Willighagen <egon.willighagen@gmail.com>
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contact: http://www.bioclipse.net/
+ */
+package net.bioclipse.managers.http;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+public class SPARQLResultsIteratorTest {
+
+	private final static String RESULTS =
+		"<?xml version=\"1.0\"?>\n" +
+		"<sparql xmlns=\"http://www.w3.org/2005/sparql-results#\">\n" +
+		"  <head><variable name=\"s\"/><variable name=\"label\"/></head>\n" +
+		"  <results>\n" +
+		"    <result>\n" +
+		"      <binding name=\"s\"><uri>https://example.org/a</uri></binding>\n" +
+		"      <binding name=\"label\"><literal xml:lang=\"en\">A</literal></binding>\n" +
+		"    </result>\n" +
+		"    <result>\n" +
+		"      <binding name=\"s\"><bnode>b0</bnode></binding>\n" +
+		"    </result>\n" +
+		"  </results>\n" +
+		"</sparql>";
+
+	@Test
+	public void testRows() throws Exception {
+		SPARQLResultsIterator results = new SPARQLResultsIterator(
+			new ByteArrayInputStream(RESULTS.getBytes(StandardCharsets.UTF_8)), null
+		);
+		assertEquals(2, results.getVariables().size());
+		assertEquals("label", results.getVariables().get(1));
+		Map<String,String> row = results.next();
+		assertEquals("https://example.org/a", row.get("s"));
+		assertEquals("A", row.get("label"));
+		row = results.next();
+		assertEquals("b0", row.get("s"));
+		assertFalse(row.containsKey("label"));
+		assertFalse(results.hasNext());
+	}
+
+	@Test
+	public void testClose() throws Exception {
+		boolean[] closed = new boolean[1];
+		SPARQLResultsIterator results = new SPARQLResultsIterator(
+			new ByteArrayInputStream(RESULTS.getBytes(StandardCharsets.UTF_8)), () -> closed[0] = true
+		);
+		assertTrue(results.hasNext());
+		results.close();
+		assertTrue(closed[0]);
+		assertFalse(results.hasNext());
+	}
+
+	@Test
+	public void testNotXML() {
+		assertThrows(IOException.class, () ->
+		{
+			new SPARQLResultsIterator(
+				new ByteArrayInputStream("no XML".getBytes(StandardCharsets.UTF_8)), null
+			);
+		});
+	}
+
+	@Test
+	public void testJSON() throws Exception {
+		String json =
+			"{\"head\": {\"vars\": [\"s\", \"label\"], \"link\": []},\n" +
+			" \"results\": {\"bindings\": [\n" +
+			"   {\"s\": {\"type\": \"uri\", \"value\": \"https://example.org/a\"},\n" +
+			"    \"label\": {\"type\": \"literal\", \"xml:lang\": \"en\", \"value\": \"A \\\"quoted\\\" \\u00e9\"}},\n" +
+			"   {\"s\": {\"type\": \"bnode\", \"value\": \"b0\"}, \"n\": {\"type\": \"literal\", \"value\": \"1\", \"extra\": [1, true, null]}}\n" +
+			" ]}}";
+		SPARQLResultsIterator results = new SPARQLResultsIterator(
+			new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), SPARQLResultsIterator.JSON, null
+		);
+		assertEquals(2, results.getVariables().size());
+		Map<String,String> row = results.next();
+		assertEquals("https://example.org/a", row.get("s"));
+		assertEquals("A \"quoted\" \u00e9", row.get("label"));
+		row = results.next();
+		assertEquals("b0", row.get("s"));
+		assertEquals("1", row.get("n"));
+		assertFalse(results.hasNext());
+	}
+
+	@Test
+	public void testTSV() throws Exception {
+		String tsv =
+			"?s\t?label\t?n\n" +
+			"<https://example.org/a>\t\"A\\ttab\"@en\t42\n" +
+			"_:b0\t\t\"1\"^^<http://www.w3.org/2001/XMLSchema#int>\n";
+		SPARQLResultsIterator results = new SPARQLResultsIterator(
+			new ByteArrayInputStream(tsv.getBytes(StandardCharsets.UTF_8)), "text/tab-separated-values; charset=utf-8", null
+		);
+		assertEquals("label", results.getVariables().get(1));
+		Map<String,String> row = results.next();
+		assertEquals("https://example.org/a", row.get("s"));
+		assertEquals("A\ttab", row.get("label"));
+		assertEquals("42", row.get("n"));
+		row = results.next();
+		assertEquals("b0", row.get("s"));
+		assertFalse(row.containsKey("label"));
+		assertEquals("1", row.get("n"));
+		assertFalse(results.hasNext());
+	}
+
+	@Test
+	public void testCSV() throws Exception {
+		String csv =
+			"s,label\r\n" +
+			"https://example.org/a,\"A, \"\"quoted\"\"\nlabel\"\r\n" +
+			"b0,\r\n";
+		SPARQLResultsIterator results = new SPARQLResultsIterator(
+			new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), SPARQLResultsIterator.CSV, null
+		);
+		assertEquals("s", results.getVariables().get(0));
+		Map<String,String> row = results.next();
+		assertEquals("A, \"quoted\"\nlabel", row.get("label"));
+		row = results.next();
+		assertEquals("b0", row.get("s"));
+		assertFalse(row.containsKey("label"));
+		assertFalse(results.hasNext());
+	}
+
+	@Test
+	public void testUnsupportedFormat() {
+		assertThrows(IOException.class, () ->
+		{
+			new SPARQLResultsIterator(
+				new ByteArrayInputStream(new byte[0]), "text/html", null
+			);
+		});
+	}
+
+}
@@ -0,0 +1,79 @@
+/* Copyright (c) 2026  Egon Willighagen <egon.willighagen@gmail.com>
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contact: http://www.bioclipse.net/
+ */
+package net.bioclipse.managers.http;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.net.InetSocketAddress;
+
+import org.apache.hc.client5.http.classic.methods.HttpGet;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.core5.http.io.entity.EntityUtils;
+import org.junit.jupiter.api.Test;
+
+import com.sun.net.httpserver.HttpServer;
+
+public class SharedHttpClientTest {
+
+	@Test
+	public void testShared() {
+		assertSame(SharedHttpClient.get(), SharedHttpClient.get());
+	}
+
+	@Test
+	public void testClose() {
+		CloseableHttpClient client = SharedHttpClient.get();
+		SharedHttpClient.close();
+		assertEquals(0, SharedHttpClient.getStatistics().get("leased"));
+		assertNotSame(client, SharedHttpClient.get());
+	}
+
+	@Test
+	public void testCloseWhileInUse() throws Exception {
+		HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		server.createContext("/", exchange -> {
+			byte[] content = "Hello".getBytes();
+			exchange.sendResponseHeaders(200, content.length);
+			exchange.getResponseBody().write(content);
+			exchange.close();
+		});
+		server.start();
+		try {
+			String url = "http://localhost:" + server.getAddress().getPort() + "/";
+			CloseableHttpClient client = SharedHttpClient.get();
+			SharedHttpClient.close();
+			// a thread that got the client before it was replaced can still use it
+			String content = client.execute(new HttpGet(url), response -> EntityUtils.toString(response.getEntity()));
+			assertEquals("Hello", content);
+		} finally {
+			server.stop(0);
+		}
+	}
+
+	@Test
+	public void testConfigure() {
+		SharedHttpClient.configure(20, 5, 5000, 300000);
+		SharedHttpClient.get();
+		assertEquals(20, SharedHttpClient.getStatistics().get("max"));
+		SharedHttpClient.configure(50, 10, 5000, 300000);
+	}
+
+	@Test
+	public void testConfigure_NoConnections() {
+		assertThrows(IllegalArgumentException.class, () ->
+		{
+			SharedHttpClient.configure(0, 0, 5000, 300000);
+		});
+	}
+
+}
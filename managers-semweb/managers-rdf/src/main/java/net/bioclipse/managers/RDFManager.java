@@ -17,16 +17,24 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.net.HttpURLConnection;
-import java.net.URL;
-import java.net.UnknownHostException;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
-import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
+import org.apache.hc.client5.http.classic.methods.HttpGet;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.core5.http.io.entity.EntityUtils;
+import org.apache.hc.core5.util.Timeout;
 import org.apache.jena.graph.Graph;
 import org.apache.jena.graph.NodeFactory;
 import org.apache.jena.graph.Triple;
@@ -34,15 +42,20 @@ import org.apache.jena.query.Dataset;
 import org.apache.jena.query.Query;
 import org.apache.jena.query.QueryExecution;
 import org.apache.jena.query.QueryExecutionFactory;
-import org.apache.jena.query.QueryFactory;
+import org.apache.jena.query.QuerySolution;
 import org.apache.jena.query.ReadWrite;
 import org.apache.jena.query.ResultSet;
-import org.apache.jena.query.ResultSetFactory;
 import org.apache.jena.rdf.model.Model;
 import org.apache.jena.rdf.model.Property;
+import org.apache.jena.rdf.model.RDFNode;
 import org.apache.jena.rdf.model.Resource;
 import org.apache.jena.riot.Lang;
 import org.apache.jena.riot.RDFDataMgr;
+import org.apache.jena.riot.RDFLanguages;
+import org.apache.jena.riot.RiotException;
+import org.apache.jena.riot.ResultSetMgr;
+import org.apache.jena.riot.WebContent;
+import org.apache.jena.riot.resultset.ResultSetLang;
 import org.apache.jena.shared.NoReaderForLangException;
 import org.apache.jena.shared.PrefixMapping;
 import org.apache.jena.shared.SyntaxError;
@@ -55,12 +68,21 @@ import org.apache.jena.shex.ShexSchema;
 import org.apache.jena.shex.ShexValidator;
 import org.apache.jena.shex.sys.ShexLib;
 import org.apache.jena.sparql.exec.http.QueryExecutionHTTPBuilder;
+import org.apache.jena.vocabulary.OWL;
 import org.apache.jena.vocabulary.RDF;
 import org.eclipse.core.runtime.CoreException;
 
 import net.bioclipse.core.business.BioclipseException;
 import net.bioclipse.core.domain.IStringMatrix;
 import net.bioclipse.core.domain.StringMatrix;
+import net.bioclipse.managers.http.SPARQLResultsIterator;
+import net.bioclipse.managers.http.SharedHttpClient;
+import net.bioclipse.managers.rdf.BatchWriter;
+import net.bioclipse.managers.rdf.BulkLoader;
+import net.bioclipse.managers.rdf.EquivalenceIndex;
+import net.bioclipse.managers.rdf.ParallelLoader;
+import net.bioclipse.managers.rdf.PreparedQuery;
+import net.bioclipse.managers.rdf.QueryCache;
 import net.bioclipse.rdf.StringMatrixHelper;
 import net.bioclipse.rdf.business.IJenaDatasetStore;
 import net.bioclipse.rdf.business.IJenaStore;
@@ -78,6 +100,20 @@ public class RDFManager {
     public static final Integer CONNECT_TIME_OUT = 5000; 
     public static final Integer READ_TIME_OUT = 30000; 
 
+    // SPARQL results formats from the fastest to transfer and parse to the slowest;
+    // CSV comes last, because it does not keep the types of the values
+    private static final String SELECT_RESULTS_ACCEPT =
+        WebContent.contentTypeResultsThrift + ", " +
+        WebContent.contentTypeResultsProtobuf + ";q=0.95, " +
+        WebContent.contentTypeTextTSV + ";q=0.9, " +
+        WebContent.contentTypeResultsJSON + ";q=0.8, " +
+        WebContent.contentTypeResultsXML + ";q=0.7, " +
+        WebContent.contentTypeTextCSV + ";q=0.5";
+
+    // template of the query getForPredicate runs for each resource
+    private static final String OBJECTS_QUERY =
+        "SELECT DISTINCT ?object WHERE { ?subject ?predicate ?object }";
+
 	private String workspaceRoot;
 
 	/**
@@ -141,9 +177,9 @@ public class RDFManager {
      */
     public List<String> getForPredicate(IRDFStore store, String resourceURI, String predicate) {
         StringMatrix results = sparql(store,
-            "SELECT DISTINCT ?object WHERE {" +
-            " <" + resourceURI + "> <" + predicate + "> ?object" +
-            "}"
+            QueryCache.prepare(OBJECTS_QUERY)
+                .bindURI("subject", resourceURI)
+                .bindURI("predicate", predicate)
         );
         if (results.getRowCount() == 0) return Collections.emptyList();
         return results.getColumn("object");
@@ -161,31 +197,9 @@ public class RDFManager {
      */
     public List<String> allOwlSameAs(IRDFStore store, String resourceURI)
     throws IOException, BioclipseException, CoreException {
-    	Set<String> resources = new HashSet<String>();
-    	resources.add(resourceURI);
-    	// implements a non-reasoning sameAs reasoner:
-    	// keep looking up sameAs relations, until we find no new ones
-    	List<String> newLeads = allOwlSameAsOneDown(store, resourceURI);
-    	newLeads.removeAll(resources); //
-    	while (newLeads.size() > 0) {
-    		List<String> newResources = new ArrayList<String>();
-        	for (String resource : newLeads) {
-        		System.out.println("Trying: " + resource);
-        		if (!resources.contains(resource)) {
-        			System.out.println("New: " + resource);
-        			resources.add(resource);
-        			newResources.addAll(
-        				allOwlSameAsOneDown(store, resource)
-        			);
-        		}
-        	}
-        	newResources.removeAll(resources);
-			newLeads = newResources;
-    	}
-    	List<String> finalList = new ArrayList<String>();
-    	finalList.addAll(resources);
-    	finalList.remove(resourceURI); // remove the source resource
-    	return finalList;
+    	// implements a non-reasoning sameAs reasoner, following the
+    	// relations in both directions until we find no new ones
+    	return closure(store, OWL.sameAs, resourceURI);
     }
 
     /**
@@ -200,75 +214,61 @@ public class RDFManager {
      */
     public List<String> allOwlEquivalentClass(IRDFStore store, String resourceURI)
     throws IOException, BioclipseException, CoreException {
-    	Set<String> resources = new HashSet<String>();
-    	resources.add(resourceURI);
-    	// implements a non-reasoning owl:equivalentClass reasoner:
-    	// keep looking up equivalentClass relations, until we find no new ones
-    	List<String> newLeads = allOwlEquivalentClassOneDown(store, resourceURI);
-    	newLeads.removeAll(resources); //
-    	while (newLeads.size() > 0) {
-    		List<String> newResources = new ArrayList<String>();
-        	for (String resource : newLeads) {
-        		System.out.println("Trying: " + resource);
-        		if (!resources.contains(resource)) {
-        			System.out.println("New: " + resource);
-        			resources.add(resource);
-        			newResources.addAll(
-        				allOwlEquivalentClassOneDown(store, resource)
-        			);
-        		}
-        	}
-        	newResources.removeAll(resources);
-			newLeads = newResources;
-    	}
-    	List<String> finalList = new ArrayList<String>();
-    	finalList.addAll(resources);
-    	finalList.remove(resourceURI); // remove the source resource
-    	return finalList;
+    	return closure(store, OWL.equivalentClass, resourceURI);
     }
-    
-    private List<String> allOwlSameAsOneDown(IRDFStore store, String resourceURI)
-    throws IOException, BioclipseException, CoreException {
-    	// got no reasoner, so need implement inverse relation manually
-    	String sparql =
-    		"PREFIX owl: <http://www.w3.org/2002/07/owl#> " +
-    		"SELECT ?resource WHERE {" +
-    		"  <" + resourceURI + "> owl:sameAs ?resource ." +
-    		"}";
-    	StringMatrix results = sparql(store, sparql);
-    	if (results.getRowCount() == 0) return Collections.emptyList();
-    	List<String> resources = results.getColumn("resource");
-    	sparql =
-    		"PREFIX owl: <http://www.w3.org/2002/07/owl#> " +
-    		"SELECT ?resource WHERE {" +
-    		"  ?resource  owl:sameAs <" + resourceURI + ">." +
-    		"}";
-    	results = sparql(store, sparql);
-    	if (results.getRowCount() == 0) return resources;
-    	resources.addAll(results.getColumn("resource"));
-    	return resources;
-    }
-
-    private List<String> allOwlEquivalentClassOneDown(IRDFStore store, String resourceURI)
-    throws IOException, BioclipseException, CoreException {
-    	// got no reasoner, so need implement inverse relation manually
-    	String sparql =
-    		"PREFIX owl: <http://www.w3.org/2002/07/owl#> " +
-    		"SELECT ?resource WHERE {" +
-    		"  <" + resourceURI + "> owl:equivalentClass ?resource ." +
-    		"}";
-    	StringMatrix results = sparql(store, sparql);
-    	if (results.getRowCount() == 0) return Collections.emptyList();
-    	List<String> resources = results.getColumn("resource");
-    	sparql =
-    		"PREFIX owl: <http://www.w3.org/2002/07/owl#> " +
-    		"SELECT ?resource WHERE {" +
-    		"  ?resource  owl:equivalentClass <" + resourceURI + ">." +
-    		"}";
-    	results = sparql(store, sparql);
-    	if (results.getRowCount() == 0) return resources;
-    	resources.addAll(results.getColumn("resource"));
-    	return resources;
+
+    /**
+     * Indexes all owl:sameAs relations in the store, for looking up the identical
+     * resources of many resources. The index is not updated when the store changes.
+     *
+     * @param  store the {@link IRDFStore} store with the owl:sameAs relations
+     * @return       an {@link EquivalenceIndex} with all identical resources
+     */
+    public EquivalenceIndex createOwlSameAsIndex(IRDFStore store) {
+    	return createIndex(store, OWL.sameAs);
+    }
+
+    /**
+     * Indexes all owl:equivalentClass relations in the store, for looking up the
+     * equivalent classes of many classes. The index is not updated when the store changes.
+     *
+     * @param  store the {@link IRDFStore} store with the owl:equivalentClass relations
+     * @return       an {@link EquivalenceIndex} with all equivalent classes
+     */
+    public EquivalenceIndex createOwlEquivalentClassIndex(IRDFStore store) {
+    	return createIndex(store, OWL.equivalentClass);
+    }
+
+    private List<String> closure(IRDFStore store, Property property, String resourceURI) {
+        if (!(store instanceof IJenaStore))
+            throw new RuntimeException(
+                "Can only handle IJenaStore's for now."
+            );
+        Dataset dataset = store instanceof IJenaDatasetStore
+            ? ((IJenaDatasetStore)store).getDataset() : null;
+        boolean inTransaction = dataset != null && !dataset.isInTransaction();
+        if (inTransaction) dataset.begin(ReadWrite.READ);
+        try {
+            return EquivalenceIndex.closure(((IJenaStore)store).getModel(), property, resourceURI);
+        } finally {
+            if (inTransaction) dataset.end();
+        }
+    }
+
+    private EquivalenceIndex createIndex(IRDFStore store, Property property) {
+        if (!(store instanceof IJenaStore))
+            throw new RuntimeException(
+                "Can only handle IJenaStore's for now."
+            );
+        Dataset dataset = store instanceof IJenaDatasetStore
+            ? ((IJenaDatasetStore)store).getDataset() : null;
+        boolean inTransaction = dataset != null && !dataset.isInTransaction();
+        if (inTransaction) dataset.begin(ReadWrite.READ);
+        try {
+            return new EquivalenceIndex(((IJenaStore)store).getModel(), property);
+        } finally {
+            if (inTransaction) dataset.end();
+        }
     }
 
     /**
@@ -363,6 +363,42 @@ public class RDFManager {
         model.add(subjectRes, propertyRes, value, language);
     }
 
+    /**
+     * Opens a writer that adds triples to the given triple store in batches of
+     * 10000 triples. See {@link #openBatch(IRDFStore, int)}.
+     *
+     * @param store the {@link IRDFStore} store where the triples are added
+     * @return      a {@link BatchWriter} to add the triples with
+     */
+    public BatchWriter openBatch(IRDFStore store) {
+        return openBatch(store, 10000);
+    }
+
+    /**
+     * Opens a writer that adds triples to the given triple store in batches. This is
+     * faster than the add methods of this manager when many triples are added, in
+     * particular for on-disk stores, where each batch is added in one write
+     * transaction. Close the writer to add the last batch:
+     * <pre>
+     * try (BatchWriter batch = rdf.openBatch(store, 1000)) {
+     *   batch.addDataProperty(subject, property, "value");
+     * }
+     * </pre>
+     *
+     * @param store     the {@link IRDFStore} store where the triples are added
+     * @param batchSize the number of triples that are added at once
+     * @return          a {@link BatchWriter} to add the triples with
+     */
+    public BatchWriter openBatch(IRDFStore store, int batchSize) {
+        if (!(store instanceof IJenaStore))
+            throw new RuntimeException(
+                "Can only handle IJenaStore's for now."
+            );
+        Dataset dataset = store instanceof IJenaDatasetStore
+            ? ((IJenaDatasetStore)store).getDataset() : null;
+        return new BatchWriter(((IJenaStore)store).getModel().getGraph(), dataset, batchSize);
+    }
+
    /**
     * Queries a remote SPARQL end point.
     * 
@@ -373,9 +409,25 @@ public class RDFManager {
     public StringMatrix sparqlRemote(
             String serviceURL,
             String sparqlQueryString) {
-         Query query = QueryFactory.create(sparqlQueryString);
+         return sparqlRemote(serviceURL, QueryCache.parse(sparqlQueryString));
+     }
+
+    /**
+     * Queries a remote SPARQL end point with a prepared query and the values bound
+     * to it. See {@link #prepareQuery(String)}.
+     *
+     * @param serviceURL        the URL of the SPARQL end point
+     * @param preparedQuery     the SPARQL query with the bound values
+     * @return                  an {@link StringMatrix} object with results
+     */
+    public StringMatrix sparqlRemote(String serviceURL, PreparedQuery preparedQuery) {
+         return sparqlRemote(serviceURL, preparedQuery.toQuery());
+     }
+
+    private StringMatrix sparqlRemote(String serviceURL, Query query) {
          QueryExecutionHTTPBuilder qexecBuilder = QueryExecutionHTTPBuilder.service(serviceURL)
-             .param("timeout", "" + CONNECT_TIME_OUT).query(query);
+             .param("timeout", "" + CONNECT_TIME_OUT).query(query)
+             .acceptHeaderSelectQuery(SELECT_RESULTS_ACCEPT);
          PrefixMapping prefixMap = query.getPrefixMapping();
 
          StringMatrix table = null;
@@ -397,10 +449,45 @@ public class RDFManager {
      */
     public IStringMatrix processSPARQLXML(byte[] queryResults, String originalQuery)
             throws BioclipseException {
+        return processSPARQLXML(new ByteArrayInputStream(queryResults), originalQuery);
+    }
+
+    /**
+     * Processes XML returned by a remote SPARQL end point, while it is being read
+     * from the given stream. This avoids keeping the full XML in memory, for example
+     * when the stream is the content of the HTTP response.
+     *
+     * @param queryResults   the search results as a stream of the returned XML
+     * @param originalQuery  the original SPARQL query that gave the results
+     * @return a matrix with SPARQL results
+     * @throws BioclipseException
+     */
+    public IStringMatrix processSPARQLXML(InputStream queryResults, String originalQuery)
+            throws BioclipseException {
+        return processSPARQLResults(queryResults, WebContent.contentTypeResultsXML, originalQuery);
+    }
+
+    /**
+     * Processes the results returned by a remote SPARQL end point in the given format,
+     * while they are being read from the given stream. The SPARQL XML, JSON, TSV, and CSV
+     * formats are supported, as well as the binary Thrift and Protobuf formats of Jena.
+     *
+     * @param queryResults   the search results as a stream
+     * @param contentType    the media type of the results, e.g. text/tab-separated-values
+     * @param originalQuery  the original SPARQL query that gave the results
+     * @return a matrix with SPARQL results
+     * @throws BioclipseException when the format is not supported
+     */
+    public IStringMatrix processSPARQLResults(InputStream queryResults, String contentType,
+            String originalQuery) throws BioclipseException {
+        Lang lang = resultsLang(contentType);
+        if (lang == null)
+            throw new BioclipseException("Unsupported SPARQL results format: " + contentType);
+
     	PrefixMapping prefixMap = null;
         if (originalQuery != null) {
        	 try {
-                Query query = QueryFactory.create(originalQuery);
+                Query query = QueryCache.parse(originalQuery);
                 prefixMap = query.getPrefixMapping();
        	 } catch (Exception exception) {
        		 // could not parse the query for namespaces
@@ -409,12 +496,36 @@ public class RDFManager {
         }
 
         // now the Jena part
-        ResultSet results = ResultSetFactory.fromXML(new ByteArrayInputStream(queryResults));
+        ResultSet results = ResultSetMgr.read(queryResults, lang);
         StringMatrix table = StringMatrixHelper.convertIntoTable(prefixMap, results);
 
         return table;
     }
 
+    private static Lang resultsLang(String contentType) {
+        if (contentType == null) return ResultSetLang.RS_XML;
+        String mediaType = contentType.split(";")[0].trim().toLowerCase(Locale.ROOT);
+        switch (mediaType) {
+            case WebContent.contentTypeResultsXML:
+            case WebContent.contentTypeXML:
+            case WebContent.contentTypeTextXML:
+                return ResultSetLang.RS_XML;
+            case WebContent.contentTypeResultsJSON:
+            case WebContent.contentTypeJSON:
+                return ResultSetLang.RS_JSON;
+            case WebContent.contentTypeTextTSV:
+                return ResultSetLang.RS_TSV;
+            case WebContent.contentTypeTextCSV:
+                return ResultSetLang.RS_CSV;
+            case WebContent.contentTypeResultsThrift:
+                return ResultSetLang.RS_Thrift;
+            case WebContent.contentTypeResultsProtobuf:
+                return ResultSetLang.RS_Protobuf;
+            default:
+                return null;
+        }
+    }
+
     /**
      * Queries a local RDF triple store.
      * 
@@ -423,6 +534,22 @@ public class RDFManager {
      * @return             an {@link StringMatrix} object with results
      */
     public StringMatrix sparql(IRDFStore store, String queryString) {
+        return sparql(store, QueryCache.parse(queryString));
+    }
+
+    /**
+     * Queries a local RDF triple store with a prepared query and the values bound
+     * to it. See {@link #prepareQuery(String)}.
+     *
+     * @param store         the RDF triples store to query
+     * @param preparedQuery the SPARQL query with the bound values
+     * @return              an {@link StringMatrix} object with results
+     */
+    public StringMatrix sparql(IRDFStore store, PreparedQuery preparedQuery) {
+        return sparql(store, preparedQuery.toQuery());
+    }
+
+    private StringMatrix sparql(IRDFStore store, Query query) {
         if (!(store instanceof IJenaStore))
             throw new RuntimeException(
                 "Can only handle IJenaStore's for now."
@@ -430,7 +557,6 @@ public class RDFManager {
 
         StringMatrix table = null;
         Model model = ((IJenaStore)store).getModel();
-        Query query = QueryFactory.create(queryString);
         PrefixMapping prefixMap = query.getPrefixMapping();
         QueryExecution qexec = QueryExecutionFactory.create(query, model);
         try {
@@ -442,6 +568,187 @@ public class RDFManager {
         return table;
     }
 
+    /**
+     * Parses a SPARQL query once, for running it many times with different values
+     * bound to its variables, e.g. <code>SELECT ?o WHERE { ?s ?p ?o }</code> with
+     * <code>bindURI("s", ...)</code> and <code>bindURI("p", ...)</code>. Binding the
+     * values avoids concatenating and escaping them in the query string. Parsed
+     * queries are kept in a cache shared by all RDF managers, see
+     * {@link #setQueryCacheSize(int)}.
+     *
+     * @param queryTemplate the SPARQL query with variables for the values
+     * @return              a {@link PreparedQuery} to bind the values to
+     */
+    public PreparedQuery prepareQuery(String queryTemplate) {
+        return QueryCache.prepare(queryTemplate);
+    }
+
+    /**
+     * Sets the maximal number of parsed SPARQL queries that are kept, for all RDF
+     * managers. The default is 256.
+     *
+     * @param maxSize the maximal number of queries, or zero to parse each query again
+     */
+    public void setQueryCacheSize(int maxSize) {
+        QueryCache.setMaxSize(maxSize);
+    }
+
+    /**
+     * Returns statistics of the cache of parsed SPARQL queries: the number of queries
+     * ("size"), the maximal number ("maxSize"), and the number of queries that were
+     * found ("hits") or had to be parsed ("misses").
+     *
+     * @return a {@link Map} with the cache statistics
+     */
+    public Map<String,Long> getQueryCacheStatistics() {
+        return QueryCache.getStatistics();
+    }
+
+    /**
+     * Queries a local RDF triple store and returns an {@link Iterator} over the rows
+     * of the results, which are computed while they are read. Only the rows that are
+     * read are computed, so large results do not have to fit in memory, and closing
+     * the iterator early stops the query. The rows map the bound variables to their
+     * URI, shortened with the prefixes of the query where possible, the lexical form
+     * of the literal, or the blank node label. On triple stores on disk, the query
+     * runs in a read transaction until all rows are read or the iterator is closed,
+     * so read it on the thread that called this method.
+     *
+     * @param store        the RDF triples store to query
+     * @param queryString  the SPARQL SELECT query
+     * @return             a {@link SPARQLResultsIterator} over the rows
+     */
+    public SPARQLResultsIterator sparqlAsIterator(IRDFStore store, String queryString) {
+        return sparqlAsIterator(store, QueryCache.parse(queryString));
+    }
+
+    /**
+     * Queries a local RDF triple store with a prepared query and the values bound
+     * to it, and returns an {@link Iterator} over the rows of the results. See
+     * {@link #sparqlAsIterator(IRDFStore, String)} and {@link #prepareQuery(String)}.
+     *
+     * @param store         the RDF triples store to query
+     * @param preparedQuery the SPARQL SELECT query with the bound values
+     * @return              a {@link SPARQLResultsIterator} over the rows
+     */
+    public SPARQLResultsIterator sparqlAsIterator(IRDFStore store, PreparedQuery preparedQuery) {
+        return sparqlAsIterator(store, preparedQuery.toQuery());
+    }
+
+    private SPARQLResultsIterator sparqlAsIterator(IRDFStore store, Query query) {
+        if (!(store instanceof IJenaStore))
+            throw new RuntimeException(
+                "Can only handle IJenaStore's for now."
+            );
+
+        Dataset dataset = store instanceof IJenaDatasetStore
+            ? ((IJenaDatasetStore)store).getDataset() : null;
+        boolean inTransaction = dataset != null && !dataset.isInTransaction();
+        if (inTransaction) dataset.begin(ReadWrite.READ);
+        QueryExecution qexec = null;
+        try {
+            qexec = QueryExecutionFactory.create(query, ((IJenaStore)store).getModel());
+            ResultSet results = qexec.execSelect();
+            QueryExecution execution = qexec;
+            return new SPARQLResultsIterator(
+                new ResultSetRowReader(results, query.getPrefixMapping()),
+                () -> {
+                    execution.close();
+                    if (inTransaction) dataset.end();
+                }
+            );
+        } catch (RuntimeException exception) {
+            if (qexec != null) qexec.close();
+            if (inTransaction) dataset.end();
+            throw exception;
+        }
+    }
+
+    /**
+     * Queries a local RDF triple store and returns the rows of the results as a
+     * {@link Stream}, computed while they are read. See
+     * {@link #sparqlAsIterator(IRDFStore, String)}. The query is stopped when all rows
+     * are read or when the stream is closed, so use it in a try-with-resources block
+     * when not all rows are read.
+     *
+     * @param store        the RDF triples store to query
+     * @param queryString  the SPARQL SELECT query
+     * @return             a {@link Stream} of rows
+     */
+    public Stream<Map<String,String>> sparqlAsStream(IRDFStore store, String queryString) {
+        SPARQLResultsIterator results = sparqlAsIterator(store, queryString);
+        return StreamSupport.stream(
+            Spliterators.spliteratorUnknownSize(results, Spliterator.ORDERED | Spliterator.NONNULL), false
+        ).onClose(results::close);
+    }
+
+    /**
+     * Queries a local RDF triple store and passes each row of the results to the
+     * given handler, as soon as it is computed. See
+     * {@link #sparqlAsIterator(IRDFStore, String)}. The query stops when the handler
+     * returns false.
+     *
+     * @param store        the RDF triples store to query
+     * @param queryString  the SPARQL SELECT query
+     * @param rowHandler   gets each row, and returns false to stop the query
+     * @return             the number of rows passed to the handler
+     */
+    public long sparql(IRDFStore store, String queryString, Predicate<Map<String,String>> rowHandler) {
+        long rows = 0;
+        try (SPARQLResultsIterator results = sparqlAsIterator(store, queryString)) {
+            while (results.hasNext()) {
+                rows++;
+                if (!rowHandler.test(results.next())) break;
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Reads the rows of a Jena {@link ResultSet} one at a time.
+     */
+    private static class ResultSetRowReader implements SPARQLResultsIterator.RowReader {
+
+        private final ResultSet results;
+        private final PrefixMapping prefixMap;
+
+        private ResultSetRowReader(ResultSet results, PrefixMapping prefixMap) {
+            this.results = results;
+            this.prefixMap = prefixMap;
+        }
+
+        @Override
+        public List<String> variables() {
+            return results.getResultVars();
+        }
+
+        @Override
+        public Map<String,String> readRow() {
+            if (!results.hasNext()) return null;
+            QuerySolution solution = results.nextSolution();
+            Map<String,String> row = new LinkedHashMap<String,String>();
+            for (String variable : results.getResultVars()) {
+                RDFNode node = solution.get(variable);
+                if (node == null) continue;
+                if (node.isURIResource()) {
+                    String uri = node.asResource().getURI();
+                    String qname = prefixMap.qnameFor(uri);
+                    row.put(variable, qname != null ? qname : uri);
+                } else if (node.isAnon()) {
+                    row.put(variable, node.asResource().getId().getLabelString());
+                } else {
+                    row.put(variable, node.asLiteral().getLexicalForm());
+                }
+            }
+            return row;
+        }
+
+        @Override
+        public void close() {
+            // the query execution is closed with the iterator
+        }
+    }
+
     /**
      * Returns the number of RDF triples in the triple store.
      *  
@@ -485,6 +792,133 @@ public class RDFManager {
     	return importFromStream(store, new FileInputStream(workspaceRoot + rdfFile), format);
     }
 
+    /**
+     * Loads large RDF files from the workspace into an on-disk triple store created
+     * with {@link #createStore(String)}, using the TDB2 bulk loader. The format of
+     * each file is derived from its extension, e.g. ".nt", ".nq", ".ttl", or ".nt.gz".
+     * The progress is logged.
+     *
+     * @param store    the on-disk {@link IRDFStore} to put the triples in
+     * @param rdfFiles locations of the RDF files
+     * @return         statistics with the number of "triples" and "quads" loaded,
+     *                 the "millis" it took, and the "triplesPerSecond" throughput
+     * @throws BioclipseException when the store is not on disk, or a file is not found
+     *                            or in an unknown format
+     */
+    public Map<String,Long> bulkLoad(IRDFStore store, String... rdfFiles)
+    throws BioclipseException {
+        return bulkLoad(store, null, rdfFiles);
+    }
+
+    /**
+     * Loads large RDF files from the workspace into an on-disk triple store created
+     * with {@link #createStore(String)}, using the TDB2 bulk loader, and passes
+     * the progress messages to the given {@link Consumer}.
+     *
+     * @param store    the on-disk {@link IRDFStore} to put the triples in
+     * @param progress receives the progress messages
+     * @param rdfFiles locations of the RDF files
+     * @return         statistics with the number of "triples" and "quads" loaded,
+     *                 the "millis" it took, and the "triplesPerSecond" throughput
+     * @throws BioclipseException when the store is not on disk, or a file is not found
+     *                            or in an unknown format
+     */
+    public Map<String,Long> bulkLoad(IRDFStore store, Consumer<String> progress, String... rdfFiles)
+    throws BioclipseException {
+        if (!(store instanceof IJenaDatasetStore))
+            throw new BioclipseException(
+                "Bulk loading needs an on-disk store, see createStore()."
+            );
+        List<String> files = new ArrayList<String>();
+        for (String rdfFile : rdfFiles) {
+            File file = new File(workspaceRoot + rdfFile);
+            if (!file.exists())
+                throw new BioclipseException("File does not exist: " + rdfFile);
+            if (RDFLanguages.filenameToLang(file.getName()) == null)
+                throw new BioclipseException(
+                    "Unknown file format of " + rdfFile + ". Supported are " +
+                    "N-Triples (.nt), N-Quads (.nq), Turtle (.ttl) and TriG (.trig)."
+                );
+            files.add(file.getPath());
+        }
+        try {
+            return BulkLoader.load(((IJenaDatasetStore)store).getDataset(), files, progress);
+        } catch (RiotException exception) {
+            throw new BioclipseException(
+                "File format is not correct: " + exception.getMessage(), exception
+            );
+        }
+    }
+
+    /**
+     * Reads a large N-Triples (".nt") or N-Quads (".nq") file from the workspace
+     * and stores the statements in the given triple store, parsing parts of the
+     * file in parallel with one thread per processor. See
+     * {@link #importFileInParallel(IRDFStore, String, int)}.
+     *
+     * @param store   {@link IRDFStore} to put the triples in
+     * @param rdfFile location of the N-Triples or N-Quads file
+     * @return        statistics with the number of "triples" and "quads" loaded,
+     *                the number of "chunks" parsed, the "millis" it took, and
+     *                the "triplesPerSecond" throughput
+     * @throws BioclipseException when the file is not found, not in a line-based
+     *                            format, or not correct
+     */
+    public Map<String,Long> importFileInParallel(IRDFStore store, String rdfFile)
+    throws BioclipseException {
+        return importFileInParallel(store, rdfFile, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Reads a large N-Triples (".nt") or N-Quads (".nq") file from the workspace
+     * and stores the statements in the given triple store. The file is split at
+     * line boundaries and the parts are parsed in parallel. The statements are
+     * added in write transactions of a million statements for on-disk stores.
+     * Compressed files cannot be split; use {@link #importFile(IRDFStore, String, String)}
+     * or {@link #bulkLoad(IRDFStore, String...)} for those.
+     *
+     * @param store   {@link IRDFStore} to put the triples in
+     * @param rdfFile location of the N-Triples or N-Quads file
+     * @param threads the number of threads that parse the file
+     * @return        statistics with the number of "triples" and "quads" loaded,
+     *                the number of "chunks" parsed, the "millis" it took, and
+     *                the "triplesPerSecond" throughput
+     * @throws BioclipseException when the file is not found, not in a line-based
+     *                            format, or not correct
+     */
+    public Map<String,Long> importFileInParallel(IRDFStore store, String rdfFile, int threads)
+    throws BioclipseException {
+        if (!(store instanceof IJenaStore))
+            throw new RuntimeException(
+                "Can only handle IJenaStore's for now."
+            );
+        File file = new File(workspaceRoot + rdfFile);
+        if (!file.exists())
+            throw new BioclipseException("File does not exist: " + rdfFile);
+        Lang lang = RDFLanguages.filenameToLang(file.getName());
+        if (file.getName().endsWith(".gz") || file.getName().endsWith(".bz2") ||
+            (lang != Lang.NTRIPLES && lang != Lang.NQUADS))
+            throw new BioclipseException(
+                "Only uncompressed N-Triples (.nt) and N-Quads (.nq) files can be " +
+                "read in parallel: " + rdfFile
+            );
+        Dataset dataset = store instanceof IJenaDatasetStore
+            ? ((IJenaDatasetStore)store).getDataset() : null;
+        if (dataset != null && dataset.isInTransaction()) dataset.end();
+        try {
+            return new ParallelLoader(file.toPath(), lang, threads)
+                .load(((IJenaStore)store).getModel().getGraph(), dataset);
+        } catch (RiotException exception) {
+            throw new BioclipseException(
+                "File format is not correct: " + exception.getMessage(), exception
+            );
+        } catch (IOException exception) {
+            throw new BioclipseException(
+                "Error while reading " + rdfFile + ": " + exception.getMessage(), exception
+            );
+        }
+    }
+
     /**
      * Reads RDF triples from an {@link InputStream} in the given format and stores
      * the triples in the given triple store.
@@ -588,51 +1022,42 @@ public class RDFManager {
     public IRDFStore importURL(IRDFStore store, String url,
     		Map<String, String> extraHeaders)
         throws IOException, BioclipseException, CoreException {
-       	URL realURL = new URL(url);
-       	HttpURLConnection connection = (HttpURLConnection)realURL.openConnection();
-        connection.setConnectTimeout(CONNECT_TIME_OUT);
-        connection.setReadTimeout(READ_TIME_OUT);
-        connection.setRequestProperty("User-Agent", "Bacting (https://joss.theoj.org/papers/10.21105/joss.02558)");
-        connection.setRequestProperty(
-            "Accept", "application/xml, application/rdf+xml"
-        );
+        HttpGet request = new HttpGet(url);
+        request.setConfig(RequestConfig.custom()
+            .setResponseTimeout(Timeout.ofMilliseconds(READ_TIME_OUT))
+            .build());
+        request.setHeader("Accept", "application/xml, application/rdf+xml");
         // set the extra headers
         if (extraHeaders != null) {
         	for (String key : extraHeaders.keySet()) {
-        		connection.setRequestProperty(key, extraHeaders.get(key));
+        		request.setHeader(key, extraHeaders.get(key));
         	}
         }
-        
-        int status = connection.getResponseCode();
-        if (status != HttpURLConnection.HTTP_OK) {
-            if (status == HttpURLConnection.HTTP_MOVED_TEMP ||  // 302
-            	status == HttpURLConnection.HTTP_MOVED_PERM ||  // 301
-                status == HttpURLConnection.HTTP_SEE_OTHER) {   // 303
-            	realURL = new URL(connection.getHeaderField("Location"));
-            	connection = (HttpURLConnection)realURL.openConnection();
-            	connection.setConnectTimeout(CONNECT_TIME_OUT);
-            	connection.setReadTimeout(READ_TIME_OUT);
-            	connection.setRequestProperty("User-Agent", "Bacting (https://joss.theoj.org/papers/10.21105/joss.02558)");
-            	connection.setRequestProperty(
-            			"Accept", "application/xml, application/rdf+xml"
-            			);
-            	// set the extra headers
-            	if (extraHeaders != null) {
-            		for (String key : extraHeaders.keySet()) {
-            			connection.setRequestProperty(key, extraHeaders.get(key));
-            		}
-            	}
-            }
-        }
-        
+
+        // redirects are followed by the shared client
         try {
-            InputStream stream = connection.getInputStream();
-            importFromStream(store, stream, null);
-            stream.close();
-        } catch (UnknownHostException exception) {
-            throw new BioclipseException(
-                "Unknown or unresponsive host: " + realURL.getHost(), exception
-            );
+            SharedHttpClient.get().execute(request, response -> {
+                int status = response.getCode();
+                if (status != 200) {
+                    EntityUtils.consume(response.getEntity());
+                    throw new IOException(
+                        "Server returned HTTP response code: " + status + " for URL: " + url
+                    );
+                }
+                try (InputStream stream = response.getEntity().getContent()) {
+                    importFromStream(store, stream, null);
+                } catch (BioclipseException | CoreException exception) {
+                    throw new IOException(exception.getMessage(), exception);
+                }
+                return null;
+            });
+        } catch (IOException exception) {
+            // report errors while parsing the content as before
+            if (exception.getCause() instanceof BioclipseException)
+                throw (BioclipseException)exception.getCause();
+            if (exception.getCause() instanceof CoreException)
+                throw (CoreException)exception.getCause();
+            throw exception;
         }
         return store;
     }
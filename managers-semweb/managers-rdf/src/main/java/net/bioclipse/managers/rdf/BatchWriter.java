@@ -0,0 +1,163 @@
+/* Copyright (c) 2026  Egon Willighagen <egon.willighagen@gmail.com>
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contact: http://www.bioclipse.net/
+ */
+package net.bioclipse.managers.rdf;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.jena.datatypes.TypeMapper;
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.GraphUtil;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.query.Dataset;
+import org.apache.jena.query.ReadWrite;
+
+/**
+ * Adds many triples to a store in batches. The triples are buffered and added
+ * when the batch is full, in one write transaction when the store has a
+ * {@link Dataset} and no transaction is active. Recently used URIs are cached, so
+ * that subjects and properties used for many triples are created only once. Use it
+ * in a try-with-resources block, or call {@link #close()}, to add the last batch.
+ */
+public class BatchWriter implements AutoCloseable {
+
+	private final static int NODE_CACHE_SIZE = 1024;
+
+	private final Graph graph;
+	private final Dataset dataset;
+	private final int batchSize;
+	private final List<Triple> batch;
+	private long count = 0;
+
+	private final Map<String,Node> nodes = new LinkedHashMap<String,Node>(64, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String,Node> eldest) {
+			return size() > NODE_CACHE_SIZE;
+		}
+	};
+
+	/**
+	 * Creates a writer that adds the triples to the given graph.
+	 *
+	 * @param graph     the {@link Graph} of the store
+	 * @param dataset   the {@link Dataset} of the store, or null
+	 * @param batchSize the number of triples that are added at once
+	 */
+	public BatchWriter(Graph graph, Dataset dataset, int batchSize) {
+		if (batchSize < 1) throw new IllegalArgumentException("The batch size must be at least one.");
+		this.graph = graph;
+		this.dataset = dataset;
+		this.batchSize = batchSize;
+		this.batch = new ArrayList<Triple>(batchSize);
+	}
+
+	/**
+	 * Adds a triple with a resource as object.
+	 *
+	 * @param subject  the RDF Subject of the triple
+	 * @param property the RDF Predicate of the triple
+	 * @param object   the RDF Object of the triple
+	 */
+	public void addObjectProperty(String subject, String property, String object) {
+		add(uri(subject), uri(property), uri(object));
+	}
+
+	/**
+	 * Adds a triple with a string literal as object.
+	 *
+	 * @param subject  the RDF Subject of the triple
+	 * @param property the RDF Predicate of the triple
+	 * @param value    the RDF Literal string
+	 */
+	public void addDataProperty(String subject, String property, String value) {
+		add(uri(subject), uri(property), NodeFactory.createLiteralString(value));
+	}
+
+	/**
+	 * Adds a triple with a typed literal as object.
+	 *
+	 * @param subject  the RDF Subject of the triple
+	 * @param property the RDF Predicate of the triple
+	 * @param value    the RDF Literal string
+	 * @param dataType the data type of the RDF Literal
+	 */
+	public void addTypedDataProperty(String subject, String property, String value, String dataType) {
+		add(uri(subject), uri(property),
+			NodeFactory.createLiteralDT(value, TypeMapper.getInstance().getSafeTypeByName(dataType)));
+	}
+
+	/**
+	 * Adds a triple with a literal in the given language as object.
+	 *
+	 * @param subject  the RDF Subject of the triple
+	 * @param property the RDF Predicate of the triple
+	 * @param value    the RDF Literal string
+	 * @param language the language of the RDF Literal
+	 */
+	public void addPropertyInLanguage(String subject, String property, String value, String language) {
+		add(uri(subject), uri(property), NodeFactory.createLiteralLang(value, language));
+	}
+
+	private Node uri(String uri) {
+		Node node = nodes.get(uri);
+		if (node == null) {
+			node = NodeFactory.createURI(uri);
+			nodes.put(uri, node);
+		}
+		return node;
+	}
+
+	private void add(Node subject, Node property, Node object) {
+		batch.add(Triple.create(subject, property, object));
+		if (batch.size() >= batchSize) flush();
+	}
+
+	/**
+	 * Adds the buffered triples to the store.
+	 */
+	public void flush() {
+		if (batch.isEmpty()) return;
+		boolean ownTransaction = dataset != null && !dataset.isInTransaction();
+		if (ownTransaction) dataset.begin(ReadWrite.WRITE);
+		try {
+			GraphUtil.add(graph, batch);
+			if (ownTransaction) dataset.commit();
+			count += batch.size();
+		} finally {
+			if (ownTransaction) dataset.end(); // aborts when not committed
+			batch.clear();
+		}
+	}
+
+	/**
+	 * Returns the number of triples added to the store so far, without the
+	 * buffered triples.
+	 *
+	 * @return the number of added triples
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * Adds the last buffered triples to the store.
+	 */
+	@Override
+	public void close() {
+		flush();
+	}
+
+}
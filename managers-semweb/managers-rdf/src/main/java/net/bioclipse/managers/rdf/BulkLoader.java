@@ -0,0 +1,99 @@
+/* Copyright (c) 2026  Egon Willighagen <egon.willighagen@gmail.com>
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contact: http://www.bioclipse.net/
+ */
+package net.bioclipse.managers.rdf;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import org.apache.jena.query.Dataset;
+import org.apache.jena.query.ReadWrite;
+import org.apache.jena.riot.RDFParser;
+import org.apache.jena.riot.system.StreamRDFCounting;
+import org.apache.jena.riot.system.StreamRDFLib;
+import org.apache.jena.sparql.core.DatasetGraph;
+import org.apache.jena.tdb2.loader.DataLoader;
+import org.apache.jena.tdb2.loader.LoaderEnum;
+import org.apache.jena.tdb2.loader.LoaderFactory;
+import org.apache.jena.tdb2.loader.base.LoaderOps;
+import org.apache.jena.tdb2.loader.base.MonitorOutput;
+import org.apache.jena.tdb2.sys.TDBInternal;
+
+/**
+ * Loads large RDF files into an on-disk store. TDB2 stores are loaded with the
+ * TDB2 bulk loader, which parses the files and builds the indexes in parallel,
+ * or in phases on machines with few processors, in one transaction. Other stores
+ * are loaded in one write transaction per file.
+ */
+public class BulkLoader {
+
+	private BulkLoader() {}
+
+	/**
+	 * Loads the given files into the dataset. The format of each file is derived
+	 * from its extension, e.g. ".nt", ".nq", ".ttl", or ".nt.gz".
+	 *
+	 * @param dataset  the {@link Dataset} to load the files into
+	 * @param files    the paths of the files
+	 * @param progress receives the progress messages, or null to log them
+	 * @return         statistics with the number of "triples" and "quads" loaded,
+	 *                 the "millis" it took, and the "triplesPerSecond" throughput
+	 */
+	public static Map<String,Long> load(Dataset dataset, List<String> files, Consumer<String> progress) {
+		// the bulk loader manages its own transaction
+		if (dataset.isInTransaction()) dataset.end();
+		DatasetGraph dsg = dataset.asDatasetGraph();
+		long start = System.nanoTime();
+		long triples = 0;
+		long quads = 0;
+		if (TDBInternal.isTDB2(dsg)) {
+			MonitorOutput output = progress == null
+				? LoaderOps.outputToLog()
+				: (format, args) -> progress.accept(String.format(format, args));
+			LoaderEnum loaderType = Runtime.getRuntime().availableProcessors() >= 4
+				? LoaderEnum.Parallel : LoaderEnum.Phased;
+			DataLoader loader = LoaderFactory.createLoader(loaderType, dsg, output);
+			loader.startBulk();
+			try {
+				loader.load(files);
+				loader.finishBulk();
+			} catch (RuntimeException exception) {
+				loader.exceptionBulk();
+				throw exception;
+			}
+			triples = loader.countTriples();
+			quads = loader.countQuads();
+		} else {
+			for (String file : files) {
+				if (progress != null) progress.accept("Loading " + file);
+				StreamRDFCounting counter = StreamRDFLib.count(StreamRDFLib.dataset(dsg));
+				dataset.begin(ReadWrite.WRITE);
+				try {
+					RDFParser.source(file).parse(counter);
+					dataset.commit();
+				} finally {
+					dataset.end();
+				}
+				triples += counter.countTriples();
+				quads += counter.countQuads();
+				if (progress != null) progress.accept("Loaded " + counter.count() + " statements from " + file);
+			}
+		}
+		long millis = (System.nanoTime() - start) / 1_000_000;
+		Map<String,Long> statistics = new HashMap<String,Long>();
+		statistics.put("triples", triples);
+		statistics.put("quads", quads);
+		statistics.put("millis", millis);
+		statistics.put("triplesPerSecond", millis == 0 ? 0 : (triples + quads) * 1000 / millis);
+		return statistics;
+	}
+
+}
@@ -0,0 +1,203 @@
+/* Copyright (c) 2026  Egon Willighagen <egon.willighagen@gmail.com>
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contact: http://www.bioclipse.net/
+ */
+package net.bioclipse.managers.rdf;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.Property;
+import org.apache.jena.rdf.model.RDFNode;
+import org.apache.jena.rdf.model.Resource;
+import org.apache.jena.rdf.model.Statement;
+import org.apache.jena.rdf.model.StmtIterator;
+
+/**
+ * Index of the resources that are equivalent by a symmetric and transitive property,
+ * like owl:sameAs or owl:equivalentClass. The index is computed once from all
+ * statements with that property, using union-find, after which the equivalent
+ * resources of any resource are looked up directly. The index does not change
+ * when statements are later added to or removed from the store.
+ */
+public class EquivalenceIndex {
+
+	private final Map<String,List<String>> equivalents;
+	private final int classCount;
+
+	/**
+	 * Computes the index for the given property from all statements in the model.
+	 *
+	 * @param model    the {@link Model} with the statements
+	 * @param property the property that links equivalent resources
+	 */
+	public EquivalenceIndex(Model model, Property property) {
+		Map<String,Integer> ids = new HashMap<String,Integer>();
+		List<String> uris = new ArrayList<String>();
+		int[] parent = new int[16];
+		int[] size = new int[16];
+		StmtIterator statements = model.listStatements(null, property, (RDFNode)null);
+		try {
+			while (statements.hasNext()) {
+				Statement statement = statements.next();
+				if (!statement.getSubject().isURIResource() || !statement.getObject().isURIResource())
+					continue;
+				int[] pair = new int[2];
+				String[] pairURIs = {
+					statement.getSubject().getURI(), statement.getObject().asResource().getURI()
+				};
+				for (int i=0; i<2; i++) {
+					Integer id = ids.get(pairURIs[i]);
+					if (id == null) {
+						id = uris.size();
+						if (id == parent.length) {
+							parent = Arrays.copyOf(parent, id * 2);
+							size = Arrays.copyOf(size, id * 2);
+						}
+						parent[id] = id;
+						size[id] = 1;
+						ids.put(pairURIs[i], id);
+						uris.add(pairURIs[i]);
+					}
+					pair[i] = id;
+				}
+				int root1 = find(parent, pair[0]);
+				int root2 = find(parent, pair[1]);
+				if (root1 == root2) continue;
+				if (size[root1] < size[root2]) { int swap = root1; root1 = root2; root2 = swap; }
+				parent[root2] = root1;
+				size[root1] += size[root2];
+			}
+		} finally {
+			statements.close();
+		}
+
+		// collect the members of each class once, and share the list between them
+		Map<Integer,List<String>> classes = new HashMap<Integer,List<String>>();
+		for (int id=0; id<uris.size(); id++) {
+			classes.computeIfAbsent(find(parent, id), root -> new ArrayList<String>()).add(uris.get(id));
+		}
+		this.equivalents = new HashMap<String,List<String>>(uris.size() * 2);
+		for (List<String> members : classes.values()) {
+			List<String> shared = Collections.unmodifiableList(members);
+			for (String member : members) this.equivalents.put(member, shared);
+		}
+		this.classCount = classes.size();
+	}
+
+	private static int find(int[] parent, int id) {
+		int root = id;
+		while (parent[root] != root) root = parent[root];
+		while (parent[id] != root) { // path compression
+			int next = parent[id];
+			parent[id] = root;
+			id = next;
+		}
+		return root;
+	}
+
+	/**
+	 * Lists the resources that are equivalent to the given resource, without the
+	 * resource itself.
+	 *
+	 * @param resourceURI the resource to find the equivalent resources for
+	 * @return            the equivalent resources, or an empty list if there are none
+	 */
+	public List<String> getEquivalents(String resourceURI) {
+		List<String> members = equivalents.get(resourceURI);
+		if (members == null) return Collections.emptyList();
+		List<String> others = new ArrayList<String>(members.size() - 1);
+		for (String member : members) {
+			if (!member.equals(resourceURI)) others.add(member);
+		}
+		return others;
+	}
+
+	/**
+	 * Returns true when the two resources are equivalent.
+	 *
+	 * @param resourceURI1 the first resource
+	 * @param resourceURI2 the second resource
+	 * @return             true if both are in the same class of equivalent resources
+	 */
+	public boolean areEquivalent(String resourceURI1, String resourceURI2) {
+		if (resourceURI1.equals(resourceURI2)) return true;
+		List<String> members = equivalents.get(resourceURI1);
+		return members != null && members == equivalents.get(resourceURI2);
+	}
+
+	/**
+	 * Returns the number of resources that are equivalent to at least one other resource.
+	 *
+	 * @return the number of resources in the index
+	 */
+	public int getResourceCount() {
+		return equivalents.size();
+	}
+
+	/**
+	 * Returns the number of classes of equivalent resources.
+	 *
+	 * @return the number of classes in the index
+	 */
+	public int getClassCount() {
+		return classCount;
+	}
+
+	/**
+	 * Lists the resources that are equivalent to the given resource, by following the
+	 * property in both directions through the graph, without the resource itself. Use
+	 * this for a single lookup, and an {@link EquivalenceIndex} for many lookups.
+	 *
+	 * @param model       the {@link Model} with the statements
+	 * @param property    the property that links equivalent resources
+	 * @param resourceURI the resource to find the equivalent resources for
+	 * @return            the equivalent resources, or an empty list if there are none
+	 */
+	public static List<String> closure(Model model, Property property, String resourceURI) {
+		Set<String> visited = new LinkedHashSet<String>();
+		visited.add(resourceURI);
+		Deque<Resource> todo = new ArrayDeque<Resource>();
+		todo.add(model.createResource(resourceURI));
+		while (!todo.isEmpty()) {
+			Resource resource = todo.poll();
+			StmtIterator statements = model.listStatements(resource, property, (RDFNode)null);
+			try {
+				while (statements.hasNext()) {
+					RDFNode object = statements.next().getObject();
+					if (object.isURIResource() && visited.add(object.asResource().getURI()))
+						todo.add(object.asResource());
+				}
+			} finally {
+				statements.close();
+			}
+			statements = model.listStatements(null, property, resource);
+			try {
+				while (statements.hasNext()) {
+					Resource subject = statements.next().getSubject();
+					if (subject.isURIResource() && visited.add(subject.getURI()))
+						todo.add(subject);
+				}
+			} finally {
+				statements.close();
+			}
+		}
+		visited.remove(resourceURI);
+		return new ArrayList<String>(visited);
+	}
+
+}
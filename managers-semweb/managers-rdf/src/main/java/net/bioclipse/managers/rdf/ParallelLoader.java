@@ -0,0 +1,302 @@
+/* Copyright (c) 2026  Egon Willighagen <egon.willighagen@gmail.com>
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contact: http://www.bioclipse.net/
+ */
+package net.bioclipse.managers.rdf;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.query.Dataset;
+import org.apache.jena.query.ReadWrite;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFParser;
+import org.apache.jena.riot.lang.LabelToNode;
+import org.apache.jena.riot.system.StreamRDFBase;
+import org.apache.jena.sparql.core.DatasetGraph;
+import org.apache.jena.sparql.core.Quad;
+
+/**
+ * Loads a large N-Triples or N-Quads file with several threads. Because these
+ * formats have one statement per line, the file is split at line boundaries into
+ * chunks, which are memory mapped and parsed in parallel. The statements are
+ * added to the store by the calling thread, in batched write transactions when
+ * the store has a {@link Dataset}. Blank node labels are shared between the
+ * chunks of one file, but not with earlier loaded data.
+ */
+public class ParallelLoader {
+
+	private final static long DEFAULT_MIN_CHUNK_SIZE = 4 * 1024 * 1024;
+	private final static long MAX_CHUNK_SIZE = 256 * 1024 * 1024;
+	private final static int BATCH_SIZE = 10000;
+	private final static long TRANSACTION_SIZE = 1000000;
+
+	// marks the end of a chunk in the queue
+	private final static List<Quad> END_OF_CHUNK = new ArrayList<Quad>();
+
+	private final Path file;
+	private final Lang lang;
+	private final int threads;
+	private final long minChunkSize;
+	private final String blankNodePrefix = UUID.randomUUID().toString() + "-";
+
+	/**
+	 * Creates a loader for the given file.
+	 *
+	 * @param file    the N-Triples or N-Quads file
+	 * @param lang    {@link Lang#NTRIPLES} or {@link Lang#NQUADS}
+	 * @param threads the number of threads that parse the file
+	 */
+	public ParallelLoader(Path file, Lang lang, int threads) {
+		this(file, lang, threads, DEFAULT_MIN_CHUNK_SIZE);
+	}
+
+	ParallelLoader(Path file, Lang lang, int threads, long minChunkSize) {
+		if (lang != Lang.NTRIPLES && lang != Lang.NQUADS)
+			throw new IllegalArgumentException("Only N-Triples and N-Quads can be split: " + lang);
+		if (threads < 1) throw new IllegalArgumentException("At least one thread is needed.");
+		this.file = file;
+		this.lang = lang;
+		this.threads = threads;
+		this.minChunkSize = minChunkSize;
+	}
+
+	/**
+	 * Parses the file and adds the triples to the model of the store. Quads in a
+	 * named graph are added to that graph of the dataset, or to the model when
+	 * there is no dataset.
+	 *
+	 * @param graph   the {@link Graph} of the model to add the triples to
+	 * @param dataset the {@link Dataset} of the store, or null
+	 * @return        statistics with the number of "triples" and "quads" loaded,
+	 *                the number of "chunks", the "millis" it took, and the
+	 *                "triplesPerSecond" throughput
+	 * @throws IOException when the file cannot be read
+	 */
+	public Map<String,Long> load(Graph graph, Dataset dataset) throws IOException {
+		long start = System.nanoTime();
+		List<long[]> chunks = split();
+		BlockingQueue<List<Quad>> queue = new ArrayBlockingQueue<List<Quad>>(threads * 4);
+		AtomicReference<RuntimeException> failure = new AtomicReference<RuntimeException>();
+		ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, chunks.size())));
+		for (long[] chunk : chunks) {
+			executor.execute(() -> {
+				try {
+					if (failure.get() == null) parse(chunk[0], chunk[1], queue, failure);
+				} catch (RuntimeException exception) {
+					failure.compareAndSet(null, exception);
+				} catch (IOException exception) {
+					failure.compareAndSet(null, new UncheckedIOException(exception));
+				} finally {
+					try {
+						put(queue, END_OF_CHUNK);
+					} catch (IllegalStateException exception) {
+						// the loading was stopped
+					}
+				}
+			});
+		}
+		executor.shutdown();
+
+		long triples = 0;
+		long quads = 0;
+		long inTransaction = 0;
+		DatasetGraph dsg = dataset == null ? null : dataset.asDatasetGraph();
+		try {
+			int finishedChunks = 0;
+			while (finishedChunks < chunks.size()) {
+				List<Quad> batch = take(queue);
+				if (batch == END_OF_CHUNK) {
+					finishedChunks++;
+					continue;
+				}
+				if (failure.get() != null) continue; // drain, so that the parsers finish
+				if (dataset != null && inTransaction == 0) dataset.begin(ReadWrite.WRITE);
+				for (Quad quad : batch) {
+					if (quad.isTriple() || quad.isDefaultGraph() || dsg == null) {
+						graph.add(quad.asTriple());
+						triples++;
+					} else {
+						dsg.add(quad);
+						quads++;
+					}
+				}
+				inTransaction += batch.size();
+				if (dataset != null && inTransaction >= TRANSACTION_SIZE) {
+					dataset.commit();
+					dataset.end();
+					inTransaction = 0;
+				}
+			}
+			if (failure.get() instanceof UncheckedIOException)
+				throw ((UncheckedIOException)failure.get()).getCause();
+			if (failure.get() != null) throw failure.get();
+			if (dataset != null && inTransaction > 0) {
+				dataset.commit();
+				inTransaction = 0;
+			}
+		} finally {
+			if (dataset != null && dataset.isInTransaction()) dataset.end();
+			executor.shutdownNow();
+		}
+
+		long millis = (System.nanoTime() - start) / 1_000_000;
+		Map<String,Long> statistics = new HashMap<String,Long>();
+		statistics.put("triples", triples);
+		statistics.put("quads", quads);
+		statistics.put("chunks", (long)chunks.size());
+		statistics.put("millis", millis);
+		statistics.put("triplesPerSecond", millis == 0 ? 0 : (triples + quads) * 1000 / millis);
+		return statistics;
+	}
+
+	/**
+	 * Splits the file into chunks that start at the beginning of a line.
+	 */
+	List<long[]> split() throws IOException {
+		List<long[]> chunks = new ArrayList<long[]>();
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long size = channel.size();
+			long chunkSize = Math.min(MAX_CHUNK_SIZE, Math.max(minChunkSize, size / (threads * 4L)));
+			ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+			long start = 0;
+			while (start < size) {
+				long end = Math.min(size, start + chunkSize);
+				// move the end to just after the next line break
+				while (end < size) {
+					buffer.clear();
+					int read = channel.read(buffer, end);
+					if (read <= 0) { end = size; break; }
+					int lineBreak = -1;
+					for (int i=0; i<read; i++) {
+						if (buffer.get(i) == '\n') { lineBreak = i; break; }
+					}
+					if (lineBreak >= 0) { end += lineBreak + 1; break; }
+					end += read;
+				}
+				chunks.add(new long[] { start, end });
+				start = end;
+			}
+		}
+		return chunks;
+	}
+
+	private void parse(long start, long end, BlockingQueue<List<Quad>> queue,
+			AtomicReference<RuntimeException> failure) throws IOException {
+		ByteBuffer chunk;
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			chunk = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+		}
+		RDFParser.create()
+			.source(new ByteBufferInputStream(chunk))
+			.lang(lang)
+			.labelToNode(LabelToNode.createUseLabelAsGiven())
+			.parse(new StreamRDFBase() {
+				private List<Quad> batch = new ArrayList<Quad>(BATCH_SIZE);
+
+				@Override
+				public void triple(Triple triple) {
+					add(new Quad(Quad.defaultGraphNodeGenerated,
+						blankNode(triple.getSubject()), triple.getPredicate(), blankNode(triple.getObject())));
+				}
+
+				@Override
+				public void quad(Quad quad) {
+					add(new Quad(blankNode(quad.getGraph()),
+						blankNode(quad.getSubject()), quad.getPredicate(), blankNode(quad.getObject())));
+				}
+
+				private void add(Quad quad) {
+					batch.add(quad);
+					if (batch.size() == BATCH_SIZE) flush();
+				}
+
+				private void flush() {
+					if (failure.get() != null) throw new IllegalStateException("Loading was stopped.");
+					if (!batch.isEmpty()) put(queue, batch);
+					batch = new ArrayList<Quad>(BATCH_SIZE);
+				}
+
+				@Override
+				public void finish() {
+					flush();
+				}
+			});
+	}
+
+	// the same label in different chunks must give the same blank node
+	private Node blankNode(Node node) {
+		if (node == null || !node.isBlank()) return node;
+		return NodeFactory.createBlankNode(blankNodePrefix + node.getBlankNodeLabel());
+	}
+
+	private static void put(BlockingQueue<List<Quad>> queue, List<Quad> batch) {
+		try {
+			queue.put(batch);
+		} catch (InterruptedException exception) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while loading.", exception);
+		}
+	}
+
+	private static List<Quad> take(BlockingQueue<List<Quad>> queue) {
+		try {
+			return queue.take();
+		} catch (InterruptedException exception) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while loading.", exception);
+		}
+	}
+
+	private static class ByteBufferInputStream extends InputStream {
+
+		private final ByteBuffer buffer;
+
+		ByteBufferInputStream(ByteBuffer buffer) {
+			this.buffer = buffer;
+		}
+
+		@Override
+		public int read() {
+			return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+		}
+
+		@Override
+		public int read(byte[] bytes, int offset, int length) {
+			if (!buffer.hasRemaining()) return -1;
+			length = Math.min(length, buffer.remaining());
+			buffer.get(bytes, offset, length);
+			return length;
+		}
+
+		@Override
+		public int available() {
+			return buffer.remaining();
+		}
+	}
+
+}
@@ -0,0 +1,118 @@
+/* Copyright (c) 2026  Egon Willighagen <egon.willighagen@gmail.com>
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contact: http://www.bioclipse.net/
+ */
+package net.bioclipse.managers.rdf;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.jena.datatypes.TypeMapper;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.query.Query;
+import org.apache.jena.sparql.core.Var;
+import org.apache.jena.sparql.syntax.syntaxtransform.QueryTransformOps;
+
+/**
+ * SPARQL query that is parsed once and run many times with different values for
+ * its variables. The values are bound as RDF terms into the parsed query, so URIs
+ * and literals do not have to be escaped and concatenated into the query string.
+ * Create one with {@link QueryCache#prepare(String)}, bind the values, and pass it to
+ * the query methods of the RDF manager.
+ */
+public class PreparedQuery {
+
+	private final Query template;
+	private final Map<Var,Node> bindings = new HashMap<Var,Node>();
+
+	PreparedQuery(Query template) {
+		this.template = template;
+	}
+
+	/**
+	 * Binds a resource to the given variable.
+	 *
+	 * @param variable the name of the variable, without the question mark
+	 * @param uri      the URI of the resource
+	 * @return         this query
+	 */
+	public PreparedQuery bindURI(String variable, String uri) {
+		bindings.put(Var.alloc(variable), NodeFactory.createURI(uri));
+		return this;
+	}
+
+	/**
+	 * Binds a plain string literal to the given variable.
+	 *
+	 * @param variable the name of the variable, without the question mark
+	 * @param value    the value of the literal
+	 * @return         this query
+	 */
+	public PreparedQuery bindLiteral(String variable, String value) {
+		bindings.put(Var.alloc(variable), NodeFactory.createLiteralString(value));
+		return this;
+	}
+
+	/**
+	 * Binds a literal in the given language to the given variable.
+	 *
+	 * @param variable the name of the variable, without the question mark
+	 * @param value    the value of the literal
+	 * @param language the language of the literal, e.g. "en"
+	 * @return         this query
+	 */
+	public PreparedQuery bindLiteral(String variable, String value, String language) {
+		bindings.put(Var.alloc(variable), NodeFactory.createLiteralLang(value, language));
+		return this;
+	}
+
+	/**
+	 * Binds a typed literal to the given variable.
+	 *
+	 * @param variable the name of the variable, without the question mark
+	 * @param value    the lexical form of the literal
+	 * @param datatype the URI of the datatype, e.g. "http://www.w3.org/2001/XMLSchema#int"
+	 * @return         this query
+	 */
+	public PreparedQuery bindTypedLiteral(String variable, String value, String datatype) {
+		bindings.put(Var.alloc(variable),
+			NodeFactory.createLiteralDT(value, TypeMapper.getInstance().getSafeTypeByName(datatype)));
+		return this;
+	}
+
+	/**
+	 * Removes all bound values.
+	 *
+	 * @return this query
+	 */
+	public PreparedQuery clearBindings() {
+		bindings.clear();
+		return this;
+	}
+
+	/**
+	 * Returns the query with the bound values. The parsed query is shared and
+	 * must not be changed.
+	 *
+	 * @return the {@link Query} to execute
+	 */
+	public Query toQuery() {
+		if (bindings.isEmpty()) return template;
+		return QueryTransformOps.transform(template, new HashMap<Var,Node>(bindings));
+	}
+
+	/**
+	 * Returns the query with the bound values as a SPARQL string.
+	 */
+	@Override
+	public String toString() {
+		return toQuery().serialize();
+	}
+
+}
@@ -0,0 +1,117 @@
+/* Copyright (c) 2026  Egon Willighagen <egon.willighagen@gmail.com>
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contact: http://www.bioclipse.net/
+ */
+package net.bioclipse.managers.rdf;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.jena.query.Query;
+import org.apache.jena.query.QueryFactory;
+
+/**
+ * Bounded cache of parsed SPARQL queries, shared by all RDF managers. Queries that
+ * are run repeatedly, with the same string or as a {@link PreparedQuery} with
+ * different values, are parsed only once. The least recently used queries are
+ * dropped when the cache is full.
+ */
+public class QueryCache {
+
+	private static int maxSize = 256;
+	private static long hits = 0;
+	private static long misses = 0;
+
+	private final static LinkedHashMap<String,Query> queries = new LinkedHashMap<String,Query>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String,Query> eldest) {
+			return size() > maxSize;
+		}
+	};
+
+	private QueryCache() {}
+
+	/**
+	 * Returns the parsed query for the given string, parsing it only when it is not
+	 * in the cache. The parsed query is shared and must not be changed.
+	 *
+	 * @param queryString the SPARQL query
+	 * @return            the parsed {@link Query}
+	 */
+	public static Query parse(String queryString) {
+		synchronized (queries) {
+			Query query = queries.get(queryString);
+			if (query != null) {
+				hits++;
+				return query;
+			}
+			misses++;
+		}
+		Query query = QueryFactory.create(queryString);
+		query.setResultVars(); // done now, so that the shared query is only read later
+		synchronized (queries) {
+			if (maxSize > 0) queries.put(queryString, query);
+		}
+		return query;
+	}
+
+	/**
+	 * Parses the given query template, or takes it from the cache, for binding
+	 * values to its variables.
+	 *
+	 * @param queryTemplate the SPARQL query with variables for the values
+	 * @return              a {@link PreparedQuery} without bound values
+	 */
+	public static PreparedQuery prepare(String queryTemplate) {
+		return new PreparedQuery(parse(queryTemplate));
+	}
+
+	/**
+	 * Sets the maximal number of parsed queries in the cache.
+	 *
+	 * @param maxSize the maximal number of queries, or zero to not cache queries
+	 */
+	public static void setMaxSize(int maxSize) {
+		if (maxSize < 0) throw new IllegalArgumentException("The size cannot be negative.");
+		synchronized (queries) {
+			QueryCache.maxSize = maxSize;
+			queries.clear();
+		}
+	}
+
+	/**
+	 * Removes all parsed queries from the cache.
+	 */
+	public static void clear() {
+		synchronized (queries) {
+			queries.clear();
+		}
+	}
+
+	/**
+	 * Returns statistics of the cache: the number of parsed queries ("size"), the
+	 * maximal number ("maxSize"), and the number of lookups that found the query
+	 * ("hits") or had to parse it ("misses").
+	 *
+	 * @return a {@link Map} with the cache statistics
+	 */
+	public static Map<String,Long> getStatistics() {
+		Map<String,Long> statistics = new HashMap<String,Long>();
+		synchronized (queries) {
+			statistics.put("size", (long)queries.size());
+			statistics.put("maxSize", (long)maxSize);
+			statistics.put("hits", hits);
+			statistics.put("misses", misses);
+		}
+		return statistics;
+	}
+
+}
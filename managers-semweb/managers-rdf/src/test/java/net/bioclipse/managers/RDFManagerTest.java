@@ -17,20 +17,27 @@ import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.ByteArrayInputStream;
 import java.net.UnknownHostException;
 import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.apache.jena.shex.ShexReport;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
+import net.bioclipse.core.business.BioclipseException;
 import net.bioclipse.core.domain.IStringMatrix;
 import net.bioclipse.core.domain.StringMatrix;
+import net.bioclipse.managers.rdf.BatchWriter;
+import net.bioclipse.managers.rdf.EquivalenceIndex;
+import net.bioclipse.managers.rdf.PreparedQuery;
 import net.bioclipse.rdf.business.IRDFStore;
 
 public class RDFManagerTest {
@@ -91,6 +98,59 @@ public class RDFManagerTest {
 		assertNotNull(store);
 	}
 
+	@Test
+	public void testBulkLoad() throws Exception {
+		IRDFStore store = rdf.createStore(Files.createTempDirectory("rdftesttdb").toString());
+		ui.newFile("/RDFTests/bulk.nt",
+			"<https://example.org/subject1> <https://example.org/predicate> \"Object 1\" .\n" +
+			"<https://example.org/subject2> <https://example.org/predicate> \"Object 2\" .\n");
+		List<String> messages = new ArrayList<>();
+		Map<String,Long> statistics = rdf.bulkLoad(store, messages::add, "/RDFTests/bulk.nt");
+		assertEquals(2, statistics.get("triples"));
+		assertEquals(0, statistics.get("quads"));
+		assertEquals(2, rdf.size(store));
+		assertFalse(messages.isEmpty());
+	}
+
+	@Test
+	public void testBulkLoadErrors() throws Exception {
+		IRDFStore store = rdf.createStore(Files.createTempDirectory("rdftesttdb").toString());
+		assertThrows(BioclipseException.class, () -> rdf.bulkLoad(store, "/RDFTests/doesNotExist.nt"));
+		ui.newFile("/RDFTests/bulk.unknown", "");
+		assertThrows(BioclipseException.class, () -> rdf.bulkLoad(store, "/RDFTests/bulk.unknown"));
+		assertThrows(BioclipseException.class,
+			() -> rdf.bulkLoad(rdf.createInMemoryStore(), "/RDFTests/bulk.nt"));
+	}
+
+	@Test
+	public void testImportFileInParallel() throws Exception {
+		IRDFStore store = rdf.createInMemoryStore();
+		ui.newFile("/RDFTests/parallel.nt",
+			"<https://example.org/subject1> <https://example.org/predicate> \"Object 1\" .\n" +
+			"<https://example.org/subject2> <https://example.org/predicate> _:b1 .\n");
+		Map<String,Long> statistics = rdf.importFileInParallel(store, "/RDFTests/parallel.nt", 2);
+		assertEquals(2, statistics.get("triples"));
+		assertEquals(2, rdf.size(store));
+		assertThrows(BioclipseException.class,
+			() -> rdf.importFileInParallel(store, "/RDFTests/exampleContent.xml"));
+	}
+
+	@Test
+	public void testOpenBatch() throws Exception {
+		IRDFStore store = rdf.createStore(Files.createTempDirectory("rdftesttdb").toString());
+		try (BatchWriter batch = rdf.openBatch(store, 2)) {
+			batch.addObjectProperty("https://example.org/subject", "https://example.org/related", "https://example.org/object");
+			batch.addDataProperty("https://example.org/subject", "https://example.org/predicate", "Object");
+			assertEquals(2, batch.getCount());
+			batch.addTypedDataProperty("https://example.org/subject", "https://example.org/count", "42",
+				"http://www.w3.org/2001/XMLSchema#int");
+			batch.addPropertyInLanguage("https://example.org/subject", "https://example.org/label", "Object", "en");
+			batch.addDataProperty("https://example.org/subject", "https://example.org/comment", "Buffered");
+			assertEquals(4, batch.getCount());
+		}
+		assertEquals(5, rdf.size(store));
+	}
+
 	@Test
 	public void testCreateInMemoryStore() {
 		IRDFStore store = rdf.createInMemoryStore();
@@ -343,6 +403,78 @@ public class RDFManagerTest {
 		assertSame(1, results.getRowCount());
 	}
 
+	@Test
+	public void testSPARQLLocalAsStream() throws Exception {
+		IRDFStore store = rdf.createInMemoryStore();
+		for (int i=0; i<5; i++) {
+			rdf.addDataProperty(store,
+				"https://example.org/subject" + i,
+				"https://example.org/predicate",
+				"Object " + i
+			);
+		}
+		try (Stream<Map<String,String>> rows = rdf.sparqlAsStream(store,
+			"PREFIX ex: <https://example.org/> SELECT ?s ?o WHERE { ?s ex:predicate ?o } ORDER BY ?s")) {
+			List<Map<String,String>> results = rows.collect(Collectors.toList());
+			assertEquals(5, results.size());
+			assertEquals("ex:subject0", results.get(0).get("s"));
+			assertEquals("Object 0", results.get(0).get("o"));
+		}
+	}
+
+	@Test
+	public void testSPARQLLocalRowHandler() throws Exception {
+		IRDFStore store = rdf.createInMemoryStore();
+		for (int i=0; i<5; i++) {
+			rdf.addDataProperty(store,
+				"https://example.org/subject" + i,
+				"https://example.org/predicate",
+				"Object " + i
+			);
+		}
+		List<String> subjects = new ArrayList<>();
+		long rowCount = rdf.sparql(store,
+			"SELECT ?s WHERE { ?s <https://example.org/predicate> ?o }",
+			row -> {
+				subjects.add(row.get("s"));
+				return subjects.size() < 2;
+			}
+		);
+		assertEquals(2, rowCount);
+		assertTrue(subjects.get(0).startsWith("https://example.org/subject"));
+	}
+
+	@Test
+	public void testPreparedQuery() throws Exception {
+		IRDFStore store = rdf.createInMemoryStore();
+		rdf.addDataProperty(store,
+			"https://example.org/subject1", "https://example.org/predicate", "Object \"1\""
+		);
+		rdf.addDataProperty(store,
+			"https://example.org/subject2", "https://example.org/predicate", "Object 2"
+		);
+		PreparedQuery query = rdf.prepareQuery(
+			"SELECT ?o WHERE { ?s <https://example.org/predicate> ?o }"
+		);
+		StringMatrix results = rdf.sparql(store, query.bindURI("s", "https://example.org/subject2"));
+		assertEquals(1, results.getRowCount());
+		assertTrue(results.get(1, "o").contains("Object 2"));
+		query = rdf.prepareQuery("SELECT ?s WHERE { ?s <https://example.org/predicate> ?o }");
+		results = rdf.sparql(store, query.bindLiteral("o", "Object \"1\""));
+		assertEquals(1, results.getRowCount());
+		assertTrue(results.get(1, "s").contains("subject1"));
+	}
+
+	@Test
+	public void testQueryCacheStatistics() throws Exception {
+		IRDFStore store = rdf.createInMemoryStore();
+		String query = "SELECT ?s WHERE { ?s <https://example.org/cached> ?o }";
+		rdf.sparql(store, query);
+		long hits = rdf.getQueryCacheStatistics().get("hits");
+		rdf.sparql(store, query);
+		assertEquals(hits + 1, rdf.getQueryCacheStatistics().get("hits"));
+	}
+
 	@Test
 	public void testSPARQLRemote() throws Exception {
 		StringMatrix results = rdf.sparqlRemote(
@@ -364,6 +496,27 @@ public class RDFManagerTest {
 		assertSame(1, results.getRowCount());
 	}
 
+	@Test
+	public void testSPARQLRemoteNoJena_TSV() throws Exception {
+		String query = "SELECT ?node WHERE { ?node a <http://vocabularies.wikipathways.org/wp#DataNode> } LIMIT 1";
+		byte[] queryResults = bioclipse.sparqlRemoteInFormat(
+			"https://sparql.wikipathways.org/sparql", query, "text/tab-separated-values", null
+		);
+		IStringMatrix results = rdf.processSPARQLResults(
+			new ByteArrayInputStream(queryResults), "text/tab-separated-values", query
+		);
+		assertNotNull(results);
+		assertSame(1, results.getRowCount());
+	}
+
+	@Test
+	public void testProcessSPARQLResults_Unsupported() throws Exception {
+		assertThrows(BioclipseException.class, () ->
+		{
+			rdf.processSPARQLResults(new ByteArrayInputStream(new byte[0]), "text/html", null);
+		});
+	}
+
 	@Test
 	public void getForPredicate() throws Exception {
 		IRDFStore store = rdf.createInMemoryStore(true);
@@ -418,6 +571,37 @@ public class RDFManagerTest {
 		assertEquals(1, resources.size());
 	}
 
+	@Test
+	public void allOwlSameAsClosure() throws Exception {
+		IRDFStore store = rdf.createInMemoryStore(true);
+		String content =
+			"@prefix ex:    <https://example.org/> .\n" +
+			"@prefix owl:   <http://www.w3.org/2002/07/owl#> .\n" +
+			"\n" +
+			"ex:a  owl:sameAs  ex:b .\n" +
+			"ex:c  owl:sameAs  ex:b .\n" +
+			"ex:c  owl:sameAs  ex:d .\n" +
+			"ex:d  owl:sameAs  ex:a .\n" +
+			"ex:x  owl:sameAs  ex:y .\n";
+		store = rdf.importFromString(store, content, "TURTLE");
+		List<String> resources = rdf.allOwlSameAs(store, "https://example.org/b");
+		assertEquals(3, resources.size());
+		assertTrue(resources.contains("https://example.org/a"));
+		assertTrue(resources.contains("https://example.org/c"));
+		assertTrue(resources.contains("https://example.org/d"));
+		assertTrue(rdf.allOwlSameAs(store, "https://example.org/z").isEmpty());
+
+		EquivalenceIndex index = rdf.createOwlSameAsIndex(store);
+		assertEquals(6, index.getResourceCount());
+		assertEquals(2, index.getClassCount());
+		assertEquals(3, index.getEquivalents("https://example.org/b").size());
+		assertTrue(index.getEquivalents("https://example.org/d").contains("https://example.org/b"));
+		assertEquals(List.of("https://example.org/x"), index.getEquivalents("https://example.org/y"));
+		assertTrue(index.areEquivalent("https://example.org/a", "https://example.org/c"));
+		assertFalse(index.areEquivalent("https://example.org/a", "https://example.org/x"));
+		assertTrue(index.getEquivalents("https://example.org/z").isEmpty());
+	}
+
 	@Test
 	public void validateShEx() throws Exception {
 		IRDFStore store = rdf.createInMemoryStore(true);
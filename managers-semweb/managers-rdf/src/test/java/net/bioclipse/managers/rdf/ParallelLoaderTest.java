@@ -0,0 +1,82 @@
+/* Copyright (c) 2026  Egon Willighagen <egon.willighagen@gmail.com>
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contact: http://www.bioclipse.net/
+ */
+package net.bioclipse.managers.rdf;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RiotException;
+import org.junit.jupiter.api.Test;
+
+public class ParallelLoaderTest {
+
+	private Path createFile(int lines) throws Exception {
+		StringBuilder content = new StringBuilder();
+		for (int i=0; i<lines; i++) {
+			content.append("_:b1 <https://example.org/predicate> \"Object ").append(i).append("\" .\n");
+		}
+		Path file = Files.createTempFile("bioclipsetest", ".nt");
+		Files.write(file, content.toString().getBytes());
+		return file;
+	}
+
+	@Test
+	public void testSplit() throws Exception {
+		Path file = createFile(100);
+		List<long[]> chunks = new ParallelLoader(file, Lang.NTRIPLES, 4, 100).split();
+		assertTrue(chunks.size() > 1);
+		byte[] bytes = Files.readAllBytes(file);
+		long previousEnd = 0;
+		for (long[] chunk : chunks) {
+			assertEquals(previousEnd, chunk[0]);
+			assertEquals('\n', bytes[(int)chunk[1] - 1]);
+			previousEnd = chunk[1];
+		}
+		assertEquals(bytes.length, previousEnd);
+	}
+
+	@Test
+	public void testLoad() throws Exception {
+		Path file = createFile(1000);
+		Graph graph = ModelFactory.createDefaultModel().getGraph();
+		Map<String,Long> statistics = new ParallelLoader(file, Lang.NTRIPLES, 4, 1000).load(graph, null);
+		assertEquals(1000, statistics.get("triples"));
+		assertTrue(statistics.get("chunks") > 1);
+		assertEquals(1000, graph.size());
+		// the blank node is the same in all chunks
+		Set<Node> subjects = new HashSet<>();
+		graph.find(null, NodeFactory.createURI("https://example.org/predicate"), null)
+			.forEachRemaining(triple -> subjects.add(triple.getSubject()));
+		assertEquals(1, subjects.size());
+	}
+
+	@Test
+	public void testSyntaxError() throws Exception {
+		Path file = Files.createTempFile("bioclipsetest", ".nt");
+		Files.write(file, "<https://example.org/subject> <https://example.org/predicate> .\n".getBytes());
+		Graph graph = ModelFactory.createDefaultModel().getGraph();
+		assertThrows(RiotException.class,
+			() -> new ParallelLoader(file, Lang.NTRIPLES, 2).load(graph, null));
+	}
+
+}